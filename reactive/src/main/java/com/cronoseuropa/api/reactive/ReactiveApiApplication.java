@@ -0,0 +1,30 @@
+package com.cronoseuropa.api.reactive;
+
+import com.cronoseuropa.api.caches.UserTableVersion;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+
+import java.util.Map;
+
+// The users API on WebFlux and R2DBC, next to the servlet one. Only com.cronoseuropa.api.reactive is scanned:
+// the DTOs, exceptions and utils of the api are shared, its servlet and JPA beans are not. UserTableVersion
+// has neither, so it is imported to give collection responses the same ETags.
+@SpringBootApplication
+@Import(UserTableVersion.class)
+public class ReactiveApiApplication {
+
+    // The api jar carries its own application.yaml, so this module reads reactive.yaml instead
+    public static final String CONFIG_NAME = "reactive";
+
+    public static void main(String[] args) {
+        application().run(args);
+    }
+
+    public static SpringApplication application() {
+        var application = new SpringApplication(ReactiveApiApplication.class);
+        application.setDefaultProperties(Map.of("spring.config.name", CONFIG_NAME));
+        return application;
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.cronoseuropa.api.reactive.configs;
+
+import com.cronoseuropa.api.exceptions.CustomError;
+import com.cronoseuropa.api.exceptions.CronosApiException;
+import com.cronoseuropa.api.exceptions.CronosBadRequestException;
+import com.cronoseuropa.api.exceptions.CronosInternalErrorException;
+import com.cronoseuropa.api.exceptions.UserNotFoundException;
+import com.cronoseuropa.api.exceptions.UserVersionConflictException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ServerWebInputException;
+
+// Same statuses and error bodies as CustomExceptionHandler
+@RestControllerAdvice
+public class ReactiveExceptionHandler {
+
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    @ExceptionHandler(value = {UserNotFoundException.class})
+    public CustomError handleNotFoundException(CronosApiException ex, ServerHttpRequest request) {
+        return CustomError.of(request.getPath().value(), ex);
+    }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(value = {CronosBadRequestException.class})
+    public CustomError handleBadRequestException(CronosApiException ex, ServerHttpRequest request) {
+        return CustomError.of(request.getPath().value(), ex);
+    }
+
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    @ExceptionHandler(value = {UserVersionConflictException.class})
+    public CustomError handleVersionConflictException(CronosApiException ex, ServerHttpRequest request) {
+        return CustomError.of(request.getPath().value(), ex);
+    }
+
+    @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
+    @ExceptionHandler(value = CronosInternalErrorException.class)
+    public CustomError handleInternalErrorException(CronosApiException ex, ServerHttpRequest request) {
+        return CustomError.of(request.getPath().value(), ex);
+    }
+
+    // SaveUserRequestDTO validates in its setters, so the Cronos exception reaches here wrapped by the decoder
+    @ExceptionHandler(value = {ServerWebInputException.class})
+    public ResponseEntity<CustomError> handleInputException(ServerWebInputException ex, ServerHttpRequest request) {
+        for (Throwable cause = ex.getCause(); null != cause; cause = cause.getCause()) {
+            if (cause instanceof CronosBadRequestException)
+                return ResponseEntity.badRequest()
+                        .body(CustomError.of(request.getPath().value(), (CronosApiException) cause));
+        }
+        throw ex;
+    }
+}
@@ -0,0 +1,22 @@
+package com.cronoseuropa.api.reactive.configs;
+
+import com.cronoseuropa.api.exceptions.CustomError;
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import com.cronoseuropa.api.utils.CustomErrorSerializer;
+import com.cronoseuropa.api.utils.UserResponseDTOSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// The api's hand-written serializers. JacksonConfig itself can't be reused, it is a WebMvcConfigurer.
+@Configuration
+public class ReactiveJacksonConfig {
+
+    @Bean
+    public Module cronosSerializersModule() {
+        return new SimpleModule("cronos-serializers")
+                .addSerializer(UserResponseDTO.class, new UserResponseDTOSerializer())
+                .addSerializer(CustomError.class, new CustomErrorSerializer());
+    }
+}
@@ -0,0 +1,142 @@
+package com.cronoseuropa.api.reactive.controllers;
+
+import com.cronoseuropa.api.caches.UserTableVersion;
+import com.cronoseuropa.api.models.dtos.SaveUserRequestDTO;
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import com.cronoseuropa.api.reactive.services.ReactiveUserService;
+import com.cronoseuropa.api.utils.ETags;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.List;
+
+import static com.cronoseuropa.api.utils.Util.sanitizeId;
+
+// The routes, headers and error bodies of UserController, on event-loop threads. Nothing here blocks:
+// the database is reached through R2DBC, so there is no request executor to hand work to.
+// Writes bump the table version once the service's Mono completes, which is after its transaction commits.
+@RestController
+@RequestMapping("/users")
+@RequiredArgsConstructor
+public class ReactiveUserController {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String NDJSON = "application/x-ndjson";
+
+    private final ReactiveUserService userService;
+    private final UserTableVersion userTableVersion;
+
+    @Value("${cronos.users.page.default-limit:100}")
+    private int defaultPageLimit;
+    @Value("${cronos.users.page.max-limit:1000}")
+    private int maxPageLimit;
+    @Value("${cronos.users.strict-ids:false}")
+    private boolean strictIds;
+
+    @PostMapping(consumes = "application/json", produces = "application/json")
+    public Mono<ResponseEntity<UserResponseDTO>> createUser(@RequestBody SaveUserRequestDTO dto) {
+        return userService.create(dto)
+                .doOnNext(createdUser -> userTableVersion.increment())
+                .map(createdUser -> ResponseEntity.created(URI.create("/users/" + createdUser.getId()))
+                        .body(createdUser));
+    }
+
+    @GetMapping(produces = "application/json")
+    public Mono<ResponseEntity<List<UserResponseDTO>>> findAllUsers(@RequestParam(name = "after", defaultValue = "0") Long after,
+                                                                    @RequestParam(name = "limit", required = false) Integer limit,
+                                                                    @RequestHeader(name = "If-None-Match", required = false) String ifNoneMatch) {
+        // Checked before querying: an unchanged table means an unchanged page
+        var eTag = userTableVersion.eTag();
+        if (ETags.matches(ifNoneMatch, eTag)) return Mono.just(notModified(eTag));
+
+        int pageLimit = pageLimit(limit);
+        return userService.findPage(after, pageLimit)
+                .collectList()
+                .map(users -> pageResponse(users, pageLimit, eTag));
+    }
+
+    // Written as it is read, with backpressure from the connection down to the result set
+    @GetMapping(path = "/stream", produces = NDJSON)
+    public Flux<UserResponseDTO> streamAllUsers() {
+        return userService.streamAll();
+    }
+
+    @GetMapping(path = "/{userId}", produces = "application/json")
+    public Mono<ResponseEntity<UserResponseDTO>> findOneUserById(@PathVariable("userId") String userId,
+                                                                 @RequestHeader(name = "If-None-Match", required = false) String ifNoneMatch) {
+        var id = sanitizeId(userId, strictIds);
+
+        return userService.findOneById(id).map(user -> {
+            var eTag = ETags.of(user.getVersion());
+            if (ETags.matches(ifNoneMatch, eTag)) return notModified(eTag);
+
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .body(user);
+        });
+    }
+
+    @PatchMapping(path = "/{userId}", produces = "application/json")
+    public Mono<ResponseEntity<UserResponseDTO>> alterUserFieldsById(@PathVariable("userId") String userId,
+                                                                     @RequestParam(name = "name", required = false) String name,
+                                                                     @RequestParam(name = "surname", required = false) String surname,
+                                                                     @RequestParam(name = "birthDate", required = false) String birthDate,
+                                                                     @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+        var id = sanitizeId(userId, strictIds);
+        var expectedVersion = ETags.parseVersion(ifMatch);
+
+        return userService.alterFieldsById(id, name, surname, birthDate, expectedVersion)
+                .doOnNext(user -> userTableVersion.increment())
+                .map(user -> ResponseEntity.ok()
+                        .eTag(ETags.of(user.getVersion()))
+                        .body(user));
+    }
+
+    @PutMapping(path = "/{userId}", consumes = "application/json", produces = "application/json")
+    public Mono<ResponseEntity<UserResponseDTO>> alterUser(@PathVariable("userId") String userId,
+                                                           @RequestBody SaveUserRequestDTO dto,
+                                                           @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+        var id = sanitizeId(userId, strictIds);
+        var expectedVersion = ETags.parseVersion(ifMatch);
+
+        return userService.alterById(id, dto, expectedVersion)
+                .doOnNext(user -> userTableVersion.increment())
+                .map(user -> ResponseEntity.ok()
+                        .eTag(ETags.of(user.getVersion()))
+                        .body(user));
+    }
+
+    @DeleteMapping("/{userId}")
+    public Mono<ResponseEntity<Void>> deleteUserById(@PathVariable("userId") String userId,
+                                                     @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+        var id = sanitizeId(userId, strictIds);
+        var expectedVersion = ETags.parseVersion(ifMatch);
+
+        return userService.deleteById(id, expectedVersion)
+                .then(Mono.fromRunnable(userTableVersion::increment))
+                .then(Mono.just(ResponseEntity.noContent().build()));
+    }
+
+    private int pageLimit(Integer limit) {
+        return null == limit ? defaultPageLimit : Math.min(Math.max(limit, 1), maxPageLimit);
+    }
+
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+
+    private static ResponseEntity<List<UserResponseDTO>> pageResponse(List<UserResponseDTO> users, int pageLimit,
+                                                                      String eTag) {
+        var response = ResponseEntity.ok().eTag(eTag);
+        if (users.size() == pageLimit)
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(users.get(users.size() - 1).getId()));
+
+        return response.body(users);
+    }
+}
@@ -0,0 +1,111 @@
+package com.cronoseuropa.api.reactive.repositories;
+
+import com.cronoseuropa.api.models.dtos.SaveUserRequestDTO;
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.StringJoiner;
+
+// Same table and queries as UserRepository, written as SQL since there is no JPA here.
+// Rows are mapped straight into UserResponseDTOs, like the JPQL projections.
+@Repository
+@RequiredArgsConstructor
+public class ReactiveUserRepository {
+
+    private static final String SELECT_USER_RESPONSE =
+            "select usr_id, usr_name, usr_surname, usr_birth_date, usr_version from _user ";
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<UserResponseDTO> findResponseById(long id) {
+        return databaseClient.sql(SELECT_USER_RESPONSE + "where usr_id = :id")
+                .bind("id", id)
+                .map(ReactiveUserRepository::toResponse)
+                .one();
+    }
+
+    // Keyset pagination, as in UserRepository.findResponsePage
+    public Flux<UserResponseDTO> findResponsePage(long after, int limit) {
+        return databaseClient.sql(SELECT_USER_RESPONSE + "where usr_id > :after order by usr_id limit :limit")
+                .bind("after", after)
+                .bind("limit", limit)
+                .map(ReactiveUserRepository::toResponse)
+                .all();
+    }
+
+    // Rows are pulled as the subscriber requests them, so a slow client holds back the query, not the heap
+    public Flux<UserResponseDTO> streamAllResponses() {
+        return databaseClient.sql(SELECT_USER_RESPONSE + "order by usr_id")
+                .map(ReactiveUserRepository::toResponse)
+                .all();
+    }
+
+    public Mono<Boolean> existsById(long id) {
+        return databaseClient.sql("select 1 from _user where usr_id = :id")
+                .bind("id", id)
+                .map(row -> Boolean.TRUE)
+                .first()
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    // New rows start at version 0, as Hibernate's @Version does
+    public Mono<Integer> insert(long id, SaveUserRequestDTO dto) {
+        var spec = databaseClient.sql("insert into _user (usr_id, usr_name, usr_surname, usr_birth_date, usr_version) "
+                        + "values (:id, :name, :surname, :birthDate, 0)")
+                .bind("id", id);
+        spec = null == dto.getName() ? spec.bindNull("name", String.class) : spec.bind("name", dto.getName());
+        spec = null == dto.getSurname()
+                ? spec.bindNull("surname", String.class) : spec.bind("surname", dto.getSurname());
+        spec = null == dto.getBirthDate()
+                ? spec.bindNull("birthDate", LocalDate.class) : spec.bind("birthDate", dto.getBirthDate());
+        return spec.fetch().rowsUpdated();
+    }
+
+    // Sets only the given fields and bumps the version; an expected version makes the update conditional
+    public Mono<Integer> updateFields(long id, String name, String surname, LocalDate birthDate,
+                                      Long expectedVersion) {
+        var set = new StringJoiner(", ", "update _user set ", "");
+        if (null != name) set.add("usr_name = :name");
+        if (null != surname) set.add("usr_surname = :surname");
+        if (null != birthDate) set.add("usr_birth_date = :birthDate");
+        set.add("usr_version = usr_version + 1");
+
+        var sql = set + " where usr_id = :id" + (null == expectedVersion ? "" : " and usr_version = :version");
+        var spec = databaseClient.sql(sql).bind("id", id);
+        if (null != name) spec = spec.bind("name", name);
+        if (null != surname) spec = spec.bind("surname", surname);
+        if (null != birthDate) spec = spec.bind("birthDate", birthDate);
+        if (null != expectedVersion) spec = spec.bind("version", expectedVersion);
+        return spec.fetch().rowsUpdated();
+    }
+
+    public Mono<Integer> deleteUserById(long id) {
+        return databaseClient.sql("delete from _user where usr_id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Integer> deleteUserByIdAndVersion(long id, long version) {
+        return databaseClient.sql("delete from _user where usr_id = :id and usr_version = :version")
+                .bind("id", id)
+                .bind("version", version)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static UserResponseDTO toResponse(Row row) {
+        return new UserResponseDTO(
+                row.get("usr_id", Long.class),
+                row.get("usr_name", String.class),
+                row.get("usr_surname", String.class),
+                row.get("usr_birth_date", LocalDate.class),
+                row.get("usr_version", Long.class));
+    }
+}
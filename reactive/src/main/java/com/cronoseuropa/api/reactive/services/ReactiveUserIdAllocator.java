@@ -0,0 +1,41 @@
+package com.cronoseuropa.api.reactive.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+// UserIdAllocator without the blocking JdbcTemplate call. Blocks follow Hibernate's pooled optimizer:
+// a sequence value v owns the ids (v - ID_ALLOCATION_SIZE, v].
+@Component
+@RequiredArgsConstructor
+public class ReactiveUserIdAllocator {
+
+    // The increment of usr_seq in schema.sql
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    private static final String NEXT_VALUE_SQL = "select next value for usr_seq";
+
+    private final DatabaseClient databaseClient;
+
+    private long next = 1;
+    private long last = 0;
+
+    public Mono<Long> nextId() {
+        synchronized (this) {
+            if (next <= last) return Mono.just(next++);
+        }
+        return databaseClient.sql(NEXT_VALUE_SQL)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .map(this::allocate);
+    }
+
+    // Callers that raced for a new block each get their own; the rest of the replaced block is skipped,
+    // the same gap Hibernate leaves on restart
+    private synchronized long allocate(long hi) {
+        next = Math.max(1, hi - ID_ALLOCATION_SIZE + 1);
+        last = hi;
+        return next++;
+    }
+}
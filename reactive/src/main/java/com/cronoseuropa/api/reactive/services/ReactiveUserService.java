@@ -0,0 +1,94 @@
+package com.cronoseuropa.api.reactive.services;
+
+import com.cronoseuropa.api.exceptions.CronosApiException;
+import com.cronoseuropa.api.exceptions.CronosInternalErrorException;
+import com.cronoseuropa.api.exceptions.UserNotFoundException;
+import com.cronoseuropa.api.exceptions.UserVersionConflictException;
+import com.cronoseuropa.api.models.dtos.SaveUserRequestDTO;
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import com.cronoseuropa.api.reactive.repositories.ReactiveUserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Mirrors UserService: same error codes, versioning and conditional writes. There are no caches, change feed
+// or write-behind queue here, so the comparison measures the two stacks and not those.
+@Service
+@RequiredArgsConstructor
+public class ReactiveUserService {
+
+    private final ReactiveUserRepository userRepository;
+    private final ReactiveUserIdAllocator userIdAllocator;
+
+    public Mono<UserResponseDTO> create(SaveUserRequestDTO dto) {
+        return userIdAllocator.nextId()
+                .flatMap(id -> userRepository.insert(id, dto)
+                        .thenReturn(new UserResponseDTO(id, dto.getName(), dto.getSurname(), dto.getBirthDate(), 0L)))
+                .onErrorMap(ex -> !(ex instanceof CronosApiException),
+                        ex -> new CronosInternalErrorException("Internal error", 5010));
+    }
+
+    public Flux<UserResponseDTO> findPage(long after, int limit) {
+        return userRepository.findResponsePage(after, limit);
+    }
+
+    public Flux<UserResponseDTO> streamAll() {
+        return userRepository.streamAllResponses();
+    }
+
+    public Mono<UserResponseDTO> findOneById(long userId) {
+        return userRepository.findResponseById(userId)
+                .switchIfEmpty(Mono.error(UserNotFoundException::new));
+    }
+
+    @Transactional
+    public Mono<UserResponseDTO> alterById(long userId, SaveUserRequestDTO reqDto, Long expectedVersion) {
+
+        if (null == reqDto.getName() && null == reqDto.getSurname() && null == reqDto.getBirthDate()) {
+            return findOneById(userId).handle((user, sink) -> {
+                if (null != expectedVersion && !expectedVersion.equals(user.getVersion()))
+                    sink.error(new UserVersionConflictException());
+                else
+                    sink.next(user);
+            });
+        }
+
+        return userRepository.updateFields(userId, reqDto.getName(), reqDto.getSurname(), reqDto.getBirthDate(),
+                        expectedVersion)
+                .flatMap(updated -> 0 == updated ? missingOrConflict(userId, expectedVersion) : Mono.just(updated))
+                // The response carries every column, so the untouched ones are read back in the same transaction
+                .then(findOneById(userId));
+    }
+
+    @Transactional
+    public Mono<UserResponseDTO> alterFieldsById(long userId, String name, String surname, String birthDate,
+                                                 Long expectedVersion) {
+        return Mono.defer(() -> {
+            var dto = new SaveUserRequestDTO();
+
+            if (null != name) dto.setName(name);
+            if (null != surname) dto.setSurname(surname);
+            if (null != birthDate) dto.setBirthDate(birthDate);
+
+            return alterById(userId, dto, expectedVersion);
+        });
+    }
+
+    public Mono<Void> deleteById(long userId, Long expectedVersion) {
+        var deleted = null == expectedVersion
+                ? userRepository.deleteUserById(userId)
+                : userRepository.deleteUserByIdAndVersion(userId, expectedVersion);
+
+        return deleted
+                .flatMap(count -> 0 == count ? missingOrConflict(userId, expectedVersion) : Mono.just(count))
+                .then();
+    }
+
+    private <T> Mono<T> missingOrConflict(long userId, Long expectedVersion) {
+        if (null == expectedVersion) return Mono.error(new UserNotFoundException());
+        return userRepository.existsById(userId)
+                .flatMap(exists -> Mono.error(exists ? new UserVersionConflictException() : new UserNotFoundException()));
+    }
+}
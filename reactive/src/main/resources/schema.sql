@@ -0,0 +1,14 @@
+-- The table Hibernate generates for UserEntity; usr_seq's increment is ReactiveUserIdAllocator.ID_ALLOCATION_SIZE
+create sequence if not exists usr_seq start with 1 increment by 50;
+
+create table if not exists _user (
+    usr_id bigint not null primary key,
+    usr_name varchar(255),
+    usr_surname varchar(255),
+    usr_birth_date date,
+    usr_version bigint
+);
+
+create index if not exists idx_usr_name on _user (usr_name, usr_id);
+create index if not exists idx_usr_surname on _user (usr_surname, usr_id);
+create index if not exists idx_usr_birth_date on _user (usr_birth_date, usr_id);
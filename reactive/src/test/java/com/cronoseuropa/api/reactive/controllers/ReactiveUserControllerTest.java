@@ -0,0 +1,105 @@
+package com.cronoseuropa.api.reactive.controllers;
+
+import com.cronoseuropa.api.reactive.ReactiveApiApplication;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.config.name=" + ReactiveApiApplication.CONFIG_NAME)
+@AutoConfigureWebTestClient
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ReactiveUserControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    @Order(0)
+    public void testCreateUser() {
+        webTestClient.post().uri("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"João\",\"surname\":\"Carreira\",\"birthDate\":\"1994-05-01\"}")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().valueEquals("Location", "/users/1")
+                .expectBody().jsonPath("$.surname").isEqualTo("Carreira");
+    }
+
+    @Test
+    @Order(1)
+    public void testFindOneUserById() {
+        webTestClient.get().uri("/users/1")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"0\"")
+                .expectBody().jsonPath("$.name").isEqualTo("João");
+    }
+
+    @Test
+    @Order(1)
+    public void testStreamAllUsers() {
+        webTestClient.get().uri("/users/stream")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).value(body -> assertThat(body).contains("\"surname\":\"Carreira\""));
+    }
+
+    @Test
+    @Order(1)
+    public void testFindAllUsersNotModified() {
+        var eTag = webTestClient.get().uri("/users")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].surname").isEqualTo("Carreira")
+                .returnResult().getResponseHeaders().getETag();
+
+        webTestClient.get().uri("/users")
+                .header("If-None-Match", eTag)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        webTestClient.post().uri("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"Eva\",\"surname\":\"Sousa\",\"birthDate\":\"1988-02-03\"}")
+                .exchange()
+                .expectStatus().isCreated();
+
+        webTestClient.get().uri("/users")
+                .header("If-None-Match", eTag)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[1].surname").isEqualTo("Sousa");
+    }
+
+    @Test
+    @Order(2)
+    public void testAlterUserWithStaleVersion() {
+        webTestClient.patch().uri("/users/1?name=Joana")
+                .header("If-Match", "\"7\"")
+                .exchange()
+                .expectStatus().isEqualTo(412)
+                .expectBody().jsonPath("$.error.internalCode").isEqualTo("2002");
+    }
+
+    @Test
+    @Order(3)
+    public void testFindMissingUser() {
+        webTestClient.get().uri("/users/9999")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.error.internalCode").isEqualTo("2001");
+    }
+}
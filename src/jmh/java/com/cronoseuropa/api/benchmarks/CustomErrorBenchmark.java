@@ -0,0 +1,29 @@
+package com.cronoseuropa.api.benchmarks;
+
+import com.cronoseuropa.api.exceptions.CustomError;
+import com.cronoseuropa.api.exceptions.UserNotFoundException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomErrorBenchmark {
+
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        request = new MockHttpServletRequest("GET", "/users/10");
+    }
+
+    @Benchmark
+    public CustomError notFound() {
+        return CustomError.of(request.getRequestURI(), new UserNotFoundException());
+    }
+}
@@ -0,0 +1,90 @@
+package com.cronoseuropa.api.benchmarks;
+
+import com.cronoseuropa.api.ApiApplication;
+import com.cronoseuropa.api.models.dtos.SaveUserRequestDTO;
+import com.cronoseuropa.api.models.dtos.UserLookupResponseDTO;
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import com.cronoseuropa.api.services.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+// Same load against the default in-memory database and the prod profile's file-backed one.
+// The user cache is sized to zero so that reads reach the database.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class DatabaseModeBenchmark {
+
+    @Param({"mem", "file"})
+    private String database;
+
+    @Param({"10000"})
+    private int users;
+
+    private Path dataDir;
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+
+    @Setup
+    public void setUp() throws IOException {
+        var application = new SpringApplicationBuilder(ApiApplication.class).web(WebApplicationType.NONE);
+        if ("file".equals(database)) {
+            dataDir = Files.createTempDirectory("cronos-benchmark");
+            context = application.run("--spring.profiles.active=prod", "--cronos.data-dir=" + dataDir,
+                    "--cronos.cache.users.maximum-size=0", "--logging.level.root=WARN");
+        } else {
+            context = application.run("--spring.datasource.url=jdbc:h2:mem:benchmark",
+                    "--cronos.cache.users.maximum-size=0", "--logging.level.root=WARN");
+        }
+
+        userService = context.getBean(UserService.class);
+        for (int i = 0; i < users; i++) userService.create(newUser());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        if (null != dataDir) FileSystemUtils.deleteRecursively(dataDir);
+    }
+
+    @Benchmark
+    public UserResponseDTO create() {
+        return userService.create(newUser());
+    }
+
+    @Benchmark
+    public List<UserResponseDTO> findPage() {
+        return userService.findPage(ThreadLocalRandom.current().nextLong(0, users - 100), 100);
+    }
+
+    @Benchmark
+    public UserLookupResponseDTO findAllByIds() {
+        var from = ThreadLocalRandom.current().nextLong(1, users - 50);
+        return userService.findAllByIds(LongStream.range(from, from + 50).boxed().collect(Collectors.toList()));
+    }
+
+    private static SaveUserRequestDTO newUser() {
+        var dto = new SaveUserRequestDTO();
+        dto.setName("bench");
+        dto.setSurname("mark");
+        dto.setBirthDate(LocalDate.of(1990, 1, 1));
+        return dto;
+    }
+}
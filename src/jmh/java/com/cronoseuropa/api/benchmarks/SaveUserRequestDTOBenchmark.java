@@ -0,0 +1,39 @@
+package com.cronoseuropa.api.benchmarks;
+
+import com.cronoseuropa.api.models.dtos.SaveUserRequestDTO;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SaveUserRequestDTOBenchmark {
+
+    private static final String JSON = "{\"name\":\"van-romel\",\"surname\":\"neto\",\"birthDate\":\"1999-11-30\"}";
+
+    private ObjectReader reader;
+
+    @Setup
+    public void setUp() {
+        reader = Jackson2ObjectMapperBuilder.json().build().readerFor(SaveUserRequestDTO.class);
+    }
+
+    @Benchmark
+    public SaveUserRequestDTO deserialize() throws Exception {
+        return reader.readValue(JSON);
+    }
+
+    @Benchmark
+    public LocalDate parseBirthDate() {
+        var dto = new SaveUserRequestDTO();
+        dto.setBirthDate("1999-11-30");
+        return dto.getBirthDate();
+    }
+}
@@ -0,0 +1,105 @@
+package com.cronoseuropa.api.benchmarks;
+
+import com.cronoseuropa.api.ApiApplication;
+import com.cronoseuropa.api.models.dtos.SaveUserRequestDTO;
+import com.cronoseuropa.api.repositories.UserRepository;
+import com.cronoseuropa.api.services.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Throughput of GET /users under an artificially slowed repository, with Tomcat's pool deliberately small.
+// Compares the execution modes of AsyncConfig; 'virtual' needs a Java 21+ runtime, so on older ones
+// run with -p mode=sync,bounded.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(128)
+@State(Scope.Benchmark)
+public class SlowRepositoryLoadBenchmark {
+
+    @Param({"sync", "bounded", "virtual"})
+    private String mode;
+
+    @Param({"20"})
+    private long repositoryDelayMillis;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private HttpRequest request;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ApiApplication.class, SlowRepositoryConfig.class)
+                .run("--server.port=0",
+                        "--server.tomcat.threads.max=16",
+                        "--spring.datasource.url=jdbc:h2:mem:load",
+                        "--cronos.execution.mode=" + mode,
+                        "--cronos.execution.pool-size=256",
+                        "--benchmark.repository-delay-millis=" + repositoryDelayMillis,
+                        "--logging.level.root=WARN");
+
+        var userService = context.getBean(UserService.class);
+        for (int i = 0; i < 100; i++) {
+            var dto = new SaveUserRequestDTO();
+            dto.setName("load");
+            dto.setSurname("test");
+            dto.setBirthDate(LocalDate.of(1990, 1, 1));
+            userService.create(dto);
+        }
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        httpClient = HttpClient.newHttpClient();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users?limit=10")).GET().build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int findPage() throws Exception {
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Configuration
+    public static class SlowRepositoryConfig {
+
+        @Bean
+        public static BeanPostProcessor slowRepositoryPostProcessor(
+                @org.springframework.beans.factory.annotation.Value("${benchmark.repository-delay-millis}") long delayMillis) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof UserRepository)) return bean;
+                    return Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                            new Class<?>[]{UserRepository.class},
+                            (proxy, method, args) -> {
+                                Thread.sleep(delayMillis);
+                                try {
+                                    return method.invoke(bean, args);
+                                } catch (InvocationTargetException ex) {
+                                    throw ex.getCause();
+                                }
+                            });
+                }
+            };
+        }
+    }
+}
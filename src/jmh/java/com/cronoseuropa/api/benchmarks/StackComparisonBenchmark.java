@@ -0,0 +1,84 @@
+package com.cronoseuropa.api.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// The servlet api against the WebFlux + R2DBC one in reactive/, over HTTP and with many concurrent clients.
+// Both servers must be running, e.g.
+//   java -jar target/api-0.0.1-SNAPSHOT-exec.jar
+//   java -jar reactive/target/api-reactive-0.0.1-SNAPSHOT.jar
+// then: mvn -Pbenchmarks verify -Djmh.args="StackComparisonBenchmark -p baseUrl=http://localhost:8080,http://localhost:8081"
+// Add -t to change the client count, and -bm sample for latency percentiles next to the throughput.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(128)
+@State(Scope.Benchmark)
+public class StackComparisonBenchmark {
+
+    private static final String NEW_USER = "{\"name\":\"bench\",\"surname\":\"mark\",\"birthDate\":\"1990-01-01\"}";
+
+    @Param({"http://localhost:8080"})
+    private String baseUrl;
+
+    @Param({"10000"})
+    private int users;
+
+    private HttpClient client;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        for (int i = 0; i < users; i++) send(post(NEW_USER));
+    }
+
+    @Benchmark
+    public int findOneById() throws IOException, InterruptedException {
+        return send(get("/users/" + ThreadLocalRandom.current().nextLong(1, users + 1)));
+    }
+
+    @Benchmark
+    public int findPage() throws IOException, InterruptedException {
+        return send(get("/users?limit=100&after=" + ThreadLocalRandom.current().nextLong(0, users - 100)));
+    }
+
+    @Benchmark
+    public int create() throws IOException, InterruptedException {
+        return send(post(NEW_USER));
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/users"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    // Bodies are read in full, as a client would, then dropped
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        var response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() >= 400)
+            throw new IllegalStateException(request.uri() + " answered " + response.statusCode());
+        return response.body().length;
+    }
+}
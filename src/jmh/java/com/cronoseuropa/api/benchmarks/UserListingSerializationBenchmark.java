@@ -0,0 +1,66 @@
+package com.cronoseuropa.api.benchmarks;
+
+import com.cronoseuropa.api.configs.JacksonConfig;
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Serialization CPU of one GET /users sized listing per output format. Bytes on the wire, raw and gzipped,
+// are printed once per trial.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserListingSerializationBenchmark {
+
+    @Param({"reflective", "blackbird", "hand-written", "cbor"})
+    private String format;
+
+    @Param({"10000"})
+    private int listSize;
+
+    private ObjectWriter writer;
+    private List<UserResponseDTO> users;
+
+    @Setup
+    public void setUp() throws IOException {
+        var builder = "cbor".equals(format)
+                ? Jackson2ObjectMapperBuilder.json().factory(new CBORFactory())
+                : Jackson2ObjectMapperBuilder.json();
+        if ("blackbird".equals(format)) builder.modulesToInstall(new BlackbirdModule());
+        if ("hand-written".equals(format) || "cbor".equals(format))
+            builder.modulesToInstall(JacksonConfig.serializersModule());
+        writer = builder.build().writer();
+
+        users = new ArrayList<>(listSize);
+        for (int i = 1; i <= listSize; i++) users.add(UserResponseDTOBenchmark.newUser(i));
+
+        var bytes = writer.writeValueAsBytes(users);
+        System.out.printf("%n%s: %d bytes, %d bytes gzipped%n", format, bytes.length, gzip(bytes).length);
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws IOException {
+        return writer.writeValueAsBytes(users);
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,50 @@
+package com.cronoseuropa.api.benchmarks;
+
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserResponseDTOBenchmark {
+
+    @Param({"10000"})
+    private int listSize;
+
+    private ObjectWriter writer;
+    private UserResponseDTO user;
+    private List<UserResponseDTO> users;
+
+    @Setup
+    public void setUp() {
+        writer = Jackson2ObjectMapperBuilder.json().build().writer();
+        user = newUser(1);
+        users = new ArrayList<>(listSize);
+        for (int i = 1; i <= listSize; i++) users.add(newUser(i));
+    }
+
+    @Benchmark
+    public byte[] serializeOne() throws Exception {
+        return writer.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws Exception {
+        return writer.writeValueAsBytes(users);
+    }
+
+    static UserResponseDTO newUser(long id) {
+        return new UserResponseDTO(id, "name-" + id, "surname-" + id,
+                LocalDate.of(1950, 1, 1).plusDays(id % 20000), 0L);
+    }
+}
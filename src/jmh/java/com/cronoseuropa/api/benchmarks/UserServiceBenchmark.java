@@ -0,0 +1,68 @@
+package com.cronoseuropa.api.benchmarks;
+
+import com.cronoseuropa.api.ApiApplication;
+import com.cronoseuropa.api.models.dtos.SaveUserRequestDTO;
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import com.cronoseuropa.api.services.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// End-to-end UserService calls against the in-memory H2 database
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserServiceBenchmark {
+
+    @Param({"10000"})
+    private int users;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark", "--logging.level.root=WARN");
+        userService = context.getBean(UserService.class);
+        for (int i = 0; i < users; i++) userService.create(newUser());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserResponseDTO create() {
+        return userService.create(newUser());
+    }
+
+    @Benchmark
+    public UserResponseDTO findOneById() {
+        return userService.findOneById(ThreadLocalRandom.current().nextLong(1, users + 1));
+    }
+
+    @Benchmark
+    public List<UserResponseDTO> findPage() {
+        return userService.findPage(ThreadLocalRandom.current().nextLong(0, users - 100), 100);
+    }
+
+    private static SaveUserRequestDTO newUser() {
+        var dto = new SaveUserRequestDTO();
+        dto.setName("bench");
+        dto.setSurname("mark");
+        dto.setBirthDate(LocalDate.of(1990, 1, 1));
+        return dto;
+    }
+}
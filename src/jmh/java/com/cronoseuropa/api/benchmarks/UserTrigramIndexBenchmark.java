@@ -0,0 +1,100 @@
+package com.cronoseuropa.api.benchmarks;
+
+import com.cronoseuropa.api.caches.UserTrigramIndex;
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Fuzzy search latency over synthetic names. The index's own estimate and the measured heap growth are
+// printed once per trial, along with the time it took to load the users in batches as the startup scan does.
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@Threads(4)
+@State(Scope.Benchmark)
+public class UserTrigramIndexBenchmark {
+
+    // Consonant-vowel syllables; names are two to four of them
+    private static final String[] SYLLABLES = syllables("b,c,d,f,g,h,j,l,m,n,p,r,s,t,v,z,ch,lh,nh,qu,br,tr", "a,e,i,o,u");
+
+    @Param({"1000000"})
+    private int users;
+
+    private UserTrigramIndex index;
+    private String[] queries;
+
+    @Setup
+    public void setUp() {
+        var random = new Random(42);
+        var heapBefore = usedHeap();
+
+        index = new UserTrigramIndex(new SimpleMeterRegistry());
+        var start = System.nanoTime();
+        index.beginBuild();
+        var batch = new ArrayList<UserResponseDTO>(1000);
+        for (long id = 1; id <= users; id++) {
+            batch.add(new UserResponseDTO(id, word(random), word(random), LocalDate.of(1990, 1, 1), 0L));
+            if (batch.size() == 1000) {
+                index.load(batch);
+                batch = new ArrayList<>(1000);
+            }
+        }
+        if (!batch.isEmpty()) index.load(batch);
+        index.finishBuild();
+        var loadMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("%n%d users loaded in %d ms; estimated %d MB, measured heap growth %d MB%n",
+                index.size(), loadMillis, index.estimatedBytes() >> 20, (usedHeap() - heapBefore) >> 20);
+
+        // Names drawn from the same distribution, with one letter dropped to stand in for a typo
+        queries = new String[1024];
+        for (int i = 0; i < queries.length; i++) {
+            var name = word(random) + " " + word(random);
+            var typo = 1 + random.nextInt(name.length() - 1);
+            queries[i] = name.substring(0, typo) + name.substring(typo + 1);
+        }
+    }
+
+    @Benchmark
+    public UserTrigramIndex.Matches search() {
+        var query = queries[ThreadLocalRandom.current().nextInt(queries.length)];
+        return index.search(query, 20, 0.5, Duration.ofMillis(50));
+    }
+
+    @Benchmark
+    public UserTrigramIndex.Matches searchSingleWord() {
+        var query = queries[ThreadLocalRandom.current().nextInt(queries.length)];
+        return index.search(query.substring(0, query.indexOf(' ') < 0 ? query.length() : query.indexOf(' ')), 20,
+                0.5, Duration.ofMillis(50));
+    }
+
+    private static String word(Random random) {
+        var word = new StringBuilder();
+        for (int i = 0, syllables = 2 + random.nextInt(3); i < syllables; i++)
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+        return word.toString();
+    }
+
+    private static String[] syllables(String consonants, String vowels) {
+        var syllables = new ArrayList<String>();
+        for (var consonant : consonants.split(","))
+            for (var vowel : vowels.split(",")) syllables.add(consonant + vowel);
+        return syllables.toArray(new String[0]);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) System.gc();
+        var runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
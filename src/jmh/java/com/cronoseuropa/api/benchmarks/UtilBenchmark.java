@@ -0,0 +1,28 @@
+package com.cronoseuropa.api.benchmarks;
+
+import com.cronoseuropa.api.utils.Util;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UtilBenchmark {
+
+    @Param({"1", "4242", "9223372036854775807"})
+    private String id;
+
+    @Benchmark
+    public long sanitizeId() {
+        return Util.sanitizeId(id);
+    }
+
+    @Benchmark
+    public long sanitizeIdStrict() {
+        return Util.sanitizeId(id, true);
+    }
+}
@@ -3,17 +3,23 @@ package com.cronoseuropa.api;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-
-import java.util.Arrays;
-import java.util.List;
-import java.util.stream.Collectors;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 @SpringBootApplication
 @OpenAPIDefinition
 public class ApiApplication {
 
+    // Startup steps are buffered for the actuator startup endpoint and the startup report
+    public static final int STARTUP_STEPS_CAPACITY = 10000;
+
     public static void main(String[] args) {
-        SpringApplication.run(ApiApplication.class, args);
+        application().run(args);
+    }
+
+    public static SpringApplication application() {
+        var application = new SpringApplication(ApiApplication.class);
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS_CAPACITY));
+        return application;
     }
 
 }
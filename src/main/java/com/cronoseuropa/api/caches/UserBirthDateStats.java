@@ -0,0 +1,179 @@
+package com.cronoseuropa.api.caches;
+
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import com.cronoseuropa.api.models.dtos.UserStatsResponseDTO;
+import com.cronoseuropa.api.utils.LongIntHashMap;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Counts of users by birth month, and by birth day in a Fenwick tree so that any date range is summed in
+// O(log days). Age buckets are such ranges, derived when asked for, so ages stay exact as days pass.
+// Birth days are also kept per user, so that updates and deletes can take the old day back out.
+// Writes take the write lock, and UserChangePublisher applies them after commit; snapshots share a read lock.
+// Birth dates outside of the supported years are counted as unknown, which bounds the tree to about 146k days.
+@Component
+public class UserBirthDateStats {
+
+    public static final int FIRST_SUPPORTED_YEAR = 1800;
+    public static final int LAST_SUPPORTED_YEAR = 2199;
+
+    private static final int MISSING = Integer.MAX_VALUE;
+    private static final int NO_BIRTH_DATE = Integer.MIN_VALUE;
+    private static final int FIRST_SUPPORTED_DAY = (int) LocalDate.of(FIRST_SUPPORTED_YEAR, 1, 1).toEpochDay();
+    private static final int LAST_SUPPORTED_DAY = (int) LocalDate.of(LAST_SUPPORTED_YEAR, 12, 31).toEpochDay();
+    private static final int SUPPORTED_DAYS = LAST_SUPPORTED_DAY - FIRST_SUPPORTED_DAY + 1;
+    private static final int SUPPORTED_MONTHS = (LAST_SUPPORTED_YEAR - FIRST_SUPPORTED_YEAR + 1) * 12;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongIntHashMap birthDaysByUser = new LongIntHashMap(1024);
+    private long unknownBirthDate;
+    private final long[] monthCounts = new long[SUPPORTED_MONTHS];
+    private final long[] tree = new long[SUPPORTED_DAYS + 1];
+
+    private boolean building;
+    private final LongIntHashMap removedWhileBuilding = new LongIntHashMap(16);
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void put(UserResponseDTO user) {
+        var birthDay = birthDay(user.getBirthDate());
+        lock.writeLock().lock();
+        try {
+            add(user.getId(), birthDay);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long userId) {
+        lock.writeLock().lock();
+        try {
+            if (building) removedWhileBuilding.put(userId, 0, MISSING);
+            var previous = birthDaysByUser.remove(userId, MISSING);
+            if (MISSING != previous) count(previous, -1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Empties the counters for a rebuild from a table scan; see load
+    public void beginBuild() {
+        lock.writeLock().lock();
+        try {
+            birthDaysByUser.clear();
+            unknownBirthDate = 0;
+            Arrays.fill(monthCounts, 0);
+            Arrays.fill(tree, 0);
+            building = true;
+            ready = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Adds users read by the scan. A user written or deleted since the scan started is already counted
+    // as it is now, so the row the scan read is skipped.
+    public void load(List<UserResponseDTO> users) {
+        lock.writeLock().lock();
+        try {
+            for (var user : users) {
+                var userId = user.getId();
+                if (birthDaysByUser.containsKey(userId) || removedWhileBuilding.containsKey(userId)) continue;
+                add(userId, birthDay(user.getBirthDate()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void finishBuild() {
+        lock.writeLock().lock();
+        try {
+            building = false;
+            removedWhileBuilding.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Age buckets start at each of the given ages, e.g. [0, 18, 65] gives "0-17", "18-64" and "65+".
+    // Birth dates after the first bound (in the future, for a first bound of 0) are in no bucket.
+    public UserStatsResponseDTO snapshot(LocalDate today, int[] ageBounds) {
+        lock.readLock().lock();
+        try {
+            var years = new LinkedHashMap<String, Long>();
+            var months = new LinkedHashMap<String, Long>();
+            for (int month = 0; month < SUPPORTED_MONTHS; month++) {
+                var count = monthCounts[month];
+                if (0 == count) continue;
+                var yearMonth = YearMonth.of(FIRST_SUPPORTED_YEAR + month / 12, month % 12 + 1);
+                months.put(yearMonth.toString(), count);
+                years.merge(String.valueOf(yearMonth.getYear()), count, Long::sum);
+            }
+
+            var ages = new LinkedHashMap<String, Long>();
+            for (int i = 0; i < ageBounds.length; i++) {
+                var from = ageBounds[i];
+                var latest = today.minusYears(from).toEpochDay();
+                if (i + 1 == ageBounds.length) {
+                    ages.put(from + "+", sum(Long.MIN_VALUE, latest));
+                } else {
+                    var to = ageBounds[i + 1];
+                    ages.put(from + "-" + (to - 1), sum(today.minusYears(to).toEpochDay() + 1, latest));
+                }
+            }
+
+            return new UserStatsResponseDTO(today, birthDaysByUser.size(), unknownBirthDate, years, months, ages);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int birthDay(LocalDate birthDate) {
+        if (null == birthDate) return NO_BIRTH_DATE;
+        var day = birthDate.toEpochDay();
+        return day < FIRST_SUPPORTED_DAY || day > LAST_SUPPORTED_DAY ? NO_BIRTH_DATE : (int) day;
+    }
+
+    private void add(long userId, int birthDay) {
+        var previous = birthDaysByUser.put(userId, birthDay, MISSING);
+        if (MISSING != previous) count(previous, -1);
+        count(birthDay, 1);
+    }
+
+    private void count(int birthDay, int delta) {
+        if (NO_BIRTH_DATE == birthDay) {
+            unknownBirthDate += delta;
+            return;
+        }
+        var date = LocalDate.ofEpochDay(birthDay);
+        monthCounts[(date.getYear() - FIRST_SUPPORTED_YEAR) * 12 + date.getMonthValue() - 1] += delta;
+        for (int node = birthDay - FIRST_SUPPORTED_DAY + 1; node < tree.length; node += node & -node)
+            tree[node] += delta;
+    }
+
+    // Users born between the two epoch days, both inclusive
+    private long sum(long fromDay, long toDay) {
+        var from = Math.max(fromDay, FIRST_SUPPORTED_DAY) - FIRST_SUPPORTED_DAY;
+        var to = Math.min(toDay, LAST_SUPPORTED_DAY) - FIRST_SUPPORTED_DAY;
+        if (from > to) return 0;
+        return prefix((int) to + 1) - prefix((int) from);
+    }
+
+    // Users born in the first n supported days
+    private long prefix(int n) {
+        long sum = 0;
+        for (int node = n; node > 0; node -= node & -node) sum += tree[node];
+        return sum;
+    }
+}
@@ -0,0 +1,121 @@
+package com.cronoseuropa.api.caches;
+
+import com.cronoseuropa.api.exceptions.UserNotFoundException;
+import com.cronoseuropa.api.models.dtos.CacheStatsResponseDTO;
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+// Read-through cache of users by id. An empty Optional is a cached miss (negative caching).
+// Entries hold futures, so concurrent lookups of one id wait on the same load instead of each querying.
+@Component
+public class UserResponseCache {
+
+    private final AsyncCache<Long, Optional<UserResponseDTO>> cache;
+    private final boolean negativeCachingEnabled;
+
+    public UserResponseCache(MeterRegistry meterRegistry,
+                             @Value("${cronos.cache.users.maximum-size:10000}") long maximumSize,
+                             @Value("${cronos.cache.users.expire-after-write:10m}") Duration expireAfterWrite,
+                             @Value("${cronos.cache.users.negative.enabled:false}") boolean negativeCachingEnabled,
+                             @Value("${cronos.cache.users.negative.expire-after-write:30s}") Duration negativeExpireAfterWrite) {
+        this.negativeCachingEnabled = negativeCachingEnabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<Long, Optional<UserResponseDTO>>() {
+                    @Override
+                    public long expireAfterCreate(Long id, Optional<UserResponseDTO> user, long currentTime) {
+                        return (user.isPresent() ? expireAfterWrite : negativeExpireAfterWrite).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long id, Optional<UserResponseDTO> user, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(id, user, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long id, Optional<UserResponseDTO> user, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "users");
+    }
+
+    // The first lookup of an id publishes a future and runs the loader itself, outside of the map's locks,
+    // since the loader may query on the calling thread. A put or invalidate replaces the in-flight future,
+    // so a stale load never lands in the cache.
+    // A load completing with null (a miss while negative caching is off, or a failure) is not kept.
+    public UserResponseDTO get(Long id, Function<Long, CompletableFuture<Optional<UserResponseDTO>>> loader) {
+        var future = cache.getIfPresent(id);
+        if (null == future) {
+            var loading = new CompletableFuture<Optional<UserResponseDTO>>();
+            future = cache.asMap().putIfAbsent(id, loading);
+            if (null == future) {
+                future = loading;
+                load(id, loader, loading);
+            }
+        }
+
+        var cached = join(future);
+
+        if (null == cached) throw new UserNotFoundException();
+        return cached.orElseThrow(UserNotFoundException::new);
+    }
+
+    private void load(Long id, Function<Long, CompletableFuture<Optional<UserResponseDTO>>> loader,
+                      CompletableFuture<Optional<UserResponseDTO>> loading) {
+        try {
+            loader.apply(id).whenComplete((loaded, ex) -> {
+                if (null != ex) loading.completeExceptionally(ex);
+                else loading.complete(loaded.isPresent() || negativeCachingEnabled ? loaded : null);
+            });
+        } catch (RuntimeException ex) {
+            loading.completeExceptionally(ex);
+        }
+    }
+
+    // Only loads that have completed; an empty Optional is a cached miss
+    public Map<Long, Optional<UserResponseDTO>> getAllPresent(Collection<Long> ids) {
+        return cache.synchronous().getAllPresent(ids);
+    }
+
+    public void put(UserResponseDTO user) {
+        cache.put(user.getId(), CompletableFuture.completedFuture(Optional.of(user)));
+    }
+
+    public void invalidate(Long id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    public CacheStatsResponseDTO stats() {
+        var stats = cache.synchronous().stats();
+        return new CacheStatsResponseDTO(cache.synchronous().estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount());
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.cronoseuropa.api.caches;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+
+// High-water mark of writes to the user table, used as the ETag of collection responses.
+// It is kept per instance; the epoch stops tags from one process lifetime matching the next.
+@Component
+public class UserTableVersion {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    public String eTag() {
+        return "\"" + epoch + "-" + version.get() + "\"";
+    }
+
+    // For responses that also depend on the day, such as ages, so that they are not revalidated past midnight
+    public String eTag(LocalDate day) {
+        return "\"" + epoch + "-" + version.get() + "-" + day.format(DateTimeFormatter.BASIC_ISO_DATE) + "\"";
+    }
+
+    // Bumped after commit, see UserChangePublisher: a reader may pair an old tag with new rows, never a new
+    // tag with old rows
+    public void increment() {
+        version.incrementAndGet();
+    }
+}
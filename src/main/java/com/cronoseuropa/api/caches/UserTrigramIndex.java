@@ -0,0 +1,414 @@
+package com.cronoseuropa.api.caches;
+
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import com.cronoseuropa.api.utils.LongIntHashMap;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Trigram inverted index over user names and surnames, for typo-tolerant lookups that LIKE '%x%' can't
+// serve from an index. Every indexed user is a document with a dense int id, and each trigram maps, through a
+// primitive map to a dense slot, to a growable int array of document ids. An update appends a new document
+// and marks the old one dead; dead documents are compacted away once they outnumber the live ones.
+// Searches share a read lock. Writes take the write lock; UserChangePublisher applies them after commit.
+@Component
+public class UserTrigramIndex {
+
+    private static final int MISSING = -1;
+    private static final long DEAD = 0;
+    private static final int INITIAL_DOCUMENTS = 1024;
+    private static final int INITIAL_TRIGRAMS = 4096;
+    private static final int MIN_DEAD_TO_COMPACT = 1024;
+    private static final int DEADLINE_CHECK_INTERVAL = 4096;
+    private static final int MAX_PRESIZED_CANDIDATES = 4096;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongIntHashMap postingSlots = new LongIntHashMap(INITIAL_TRIGRAMS);
+    private long[] slotTrigrams = new long[INITIAL_TRIGRAMS];
+    private Postings[] slotPostings = new Postings[INITIAL_TRIGRAMS];
+    private int slotCount;
+    private final LongIntHashMap documentsByUser = new LongIntHashMap(INITIAL_DOCUMENTS);
+    private long[] documentUsers = new long[INITIAL_DOCUMENTS];
+    private short[] documentTrigrams = new short[INITIAL_DOCUMENTS];
+    private int documentCount;
+    private int deadCount;
+
+    private boolean building;
+    private final LongIntHashMap removedWhileBuilding = new LongIntHashMap(16);
+    private volatile boolean ready;
+
+    public UserTrigramIndex(MeterRegistry meterRegistry) {
+        Gauge.builder("cronos.users.fuzzy.documents", this, UserTrigramIndex::size)
+                .description("Users in the fuzzy search index")
+                .register(meterRegistry);
+        Gauge.builder("cronos.users.fuzzy.memory", this, UserTrigramIndex::estimatedBytes)
+                .description("Estimated heap held by the fuzzy search index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void put(UserResponseDTO user) {
+        var trigrams = trigrams(user.getName(), user.getSurname());
+        lock.writeLock().lock();
+        try {
+            add(user.getId(), trigrams);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long userId) {
+        lock.writeLock().lock();
+        try {
+            if (building) removedWhileBuilding.put(userId, 0, MISSING);
+            var document = documentsByUser.remove(userId, MISSING);
+            if (MISSING != document) kill(document);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Empties the index for a rebuild from a table scan; see load
+    public void beginBuild() {
+        lock.writeLock().lock();
+        try {
+            postingSlots.clear();
+            Arrays.fill(slotPostings, 0, slotCount, null);
+            slotCount = 0;
+            documentsByUser.clear();
+            documentCount = 0;
+            deadCount = 0;
+            building = true;
+            ready = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Adds users read by the scan. A user written or deleted since the scan started is already up to date,
+    // so the row the scan read is skipped. Trigrams are extracted before taking the lock.
+    public void load(List<UserResponseDTO> users) {
+        var trigrams = new long[users.size()][];
+        for (int i = 0; i < trigrams.length; i++)
+            trigrams[i] = trigrams(users.get(i).getName(), users.get(i).getSurname());
+
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < trigrams.length; i++) {
+                var userId = users.get(i).getId();
+                if (documentsByUser.containsKey(userId) || removedWhileBuilding.containsKey(userId)) continue;
+                add(userId, trigrams[i]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void finishBuild() {
+        lock.writeLock().lock();
+        try {
+            building = false;
+            removedWhileBuilding.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Ranks users by how many of the query's trigrams they share, then by trigram similarity (Jaccard).
+    // Users sharing fewer than minSimilarity of the query's trigrams are left out. Rarest trigrams are
+    // counted first, so a search cut short by the budget has already seen the most selective ones.
+    public Matches search(String query, int limit, double minSimilarity, Duration budget) {
+        var queryTrigrams = trigrams(query);
+        if (0 == queryTrigrams.length) return new Matches(new long[0], false);
+
+        var deadline = System.nanoTime() + budget.toNanos();
+        lock.readLock().lock();
+        try {
+            var lists = new ArrayList<Postings>(queryTrigrams.length);
+            for (var trigram : queryTrigrams) {
+                var slot = postingSlots.get(trigram, MISSING);
+                if (MISSING != slot) lists.add(slotPostings[slot]);
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+
+            // A document missing from every one of the first lists can't reach minShared with the rest, so only
+            // those lists admit candidates; the larger ones just add to the candidates' counts
+            var minShared = Math.max(1, (int) Math.ceil(minSimilarity * queryTrigrams.length));
+            var admitting = lists.size() - minShared + 1;
+            if (admitting <= 0) return new Matches(new long[0], false);
+
+            // Shared trigrams per candidate, keyed by document + 1 as keys must be positive. Only the admitting
+            // lists add candidates, so the map grows with them rather than with the corpus.
+            long candidateBound = 0;
+            for (int l = 0; l < admitting; l++) candidateBound += lists.get(l).size;
+            var counts = new LongIntHashMap((int) Math.min(candidateBound, MAX_PRESIZED_CANDIDATES));
+            var touched = new Postings();
+            var truncated = false;
+            long visited = 0;
+            scan:
+            for (int l = 0; l < lists.size(); l++) {
+                var list = lists.get(l);
+                if (l >= admitting && touched.size * log2(list.size) < list.size) {
+                    // Fewer candidates than postings: look each one up, posting lists are sorted
+                    for (int i = 0; i < touched.size; i++) {
+                        var document = touched.documents[i];
+                        if (Arrays.binarySearch(list.documents, 0, list.size, document) >= 0)
+                            counts.addTo(document + 1L, 1);
+                    }
+                    visited += touched.size;
+                } else {
+                    for (int i = 0; i < list.size; i++) {
+                        var document = list.documents[i];
+                        if (l < admitting) {
+                            if (1 == counts.addTo(document + 1L, 1)) touched.add(document);
+                        } else if (counts.containsKey(document + 1L)) {
+                            counts.addTo(document + 1L, 1);
+                        }
+                        if (0 == (++visited % DEADLINE_CHECK_INTERVAL) && System.nanoTime() - deadline > 0) {
+                            truncated = true;
+                            break scan;
+                        }
+                    }
+                }
+                // Drops the candidates that can't reach minShared even if they are in every remaining list
+                if (l >= admitting - 1) prune(touched, counts, minShared - (lists.size() - l - 1));
+            }
+
+            var top = new TopDocuments(limit);
+            for (int i = 0; i < touched.size; i++) {
+                var document = touched.documents[i];
+                var shared = counts.get(document + 1L, 0);
+                if (shared < minShared || DEAD == documentUsers[document]) continue;
+
+                var union = queryTrigrams.length + documentTrigrams[document] - shared;
+                top.offer(document, shared + (double) shared / union);
+            }
+
+            var userIds = new long[top.size];
+            for (int i = 0; i < top.size; i++) userIds[i] = documentUsers[top.documents[i]];
+            return new Matches(userIds, truncated);
+
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentCount - deadCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Arrays and object headers, assuming compressed oops
+    public long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 8L * documentUsers.length + 2L * documentTrigrams.length + documentsByUser.estimatedBytes();
+            bytes += postingSlots.estimatedBytes() + 8L * slotTrigrams.length + 4L * slotPostings.length;
+            // Posting list object and its array per trigram
+            for (int slot = 0; slot < slotCount; slot++) bytes += 24 + 16 + 4L * slotPostings[slot].documents.length;
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Words are case and accent folded, and padded like pg_trgm does: two spaces before, one after.
+    // Each trigram is packed as three UTF-16 chars; the result is sorted and without duplicates.
+    static long[] trigrams(String... texts) {
+        var trigrams = new long[16];
+        var count = 0;
+        for (var text : texts) {
+            if (null == text) continue;
+
+            var folded = Normalizer.normalize(text, Normalizer.Form.NFD);
+            char first = ' ', second = ' ';
+            var inWord = false;
+            for (int i = 0, length = folded.length(); i <= length; i++) {
+                var c = i < length ? folded.charAt(i) : ' ';
+                if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+
+                if (Character.isLetterOrDigit(c)) {
+                    c = Character.toLowerCase(c);
+                    inWord = true;
+                } else if (inWord) {
+                    c = ' ';
+                    inWord = false;
+                } else {
+                    continue;
+                }
+
+                if (count == trigrams.length) trigrams = Arrays.copyOf(trigrams, count << 1);
+                trigrams[count++] = (long) first << 32 | (long) second << 16 | c;
+                first = inWord ? second : ' ';
+                second = inWord ? c : ' ';
+            }
+        }
+
+        Arrays.sort(trigrams, 0, count);
+        var distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (0 == distinct || trigrams[i] != trigrams[distinct - 1]) trigrams[distinct++] = trigrams[i];
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+
+    private static void prune(Postings candidates, LongIntHashMap counts, int minCount) {
+        var kept = 0;
+        for (int i = 0; i < candidates.size; i++) {
+            var document = candidates.documents[i];
+            if (counts.get(document + 1L, 0) >= minCount) candidates.documents[kept++] = document;
+            else counts.remove(document + 1L, 0);
+        }
+        candidates.size = kept;
+    }
+
+    private static int log2(int value) {
+        return 32 - Integer.numberOfLeadingZeros(value);
+    }
+
+    private void add(long userId, long[] trigrams) {
+        var previous = documentsByUser.get(userId, MISSING);
+        if (MISSING != previous) kill(previous);
+
+        if (documentCount == documentUsers.length) {
+            documentUsers = Arrays.copyOf(documentUsers, documentCount << 1);
+            documentTrigrams = Arrays.copyOf(documentTrigrams, documentCount << 1);
+        }
+        var document = documentCount++;
+        documentUsers[document] = userId;
+        documentTrigrams[document] = (short) Math.min(trigrams.length, Short.MAX_VALUE);
+        for (var trigram : trigrams) postings(trigram).add(document);
+        documentsByUser.put(userId, document, MISSING);
+    }
+
+    private Postings postings(long trigram) {
+        var slot = postingSlots.get(trigram, MISSING);
+        if (MISSING != slot) return slotPostings[slot];
+
+        if (slotCount == slotPostings.length) {
+            slotTrigrams = Arrays.copyOf(slotTrigrams, slotCount << 1);
+            slotPostings = Arrays.copyOf(slotPostings, slotCount << 1);
+        }
+        slot = slotCount++;
+        slotTrigrams[slot] = trigram;
+        slotPostings[slot] = new Postings();
+        postingSlots.put(trigram, slot, MISSING);
+        return slotPostings[slot];
+    }
+
+    private void kill(int document) {
+        documentUsers[document] = DEAD;
+        deadCount++;
+    }
+
+    // Renumbers the live documents densely, keeping their order, so posting lists stay sorted
+    private void compactIfSparse() {
+        if (deadCount < MIN_DEAD_TO_COMPACT || deadCount <= documentCount - deadCount) return;
+
+        var renumbered = new int[documentCount];
+        var live = 0;
+        for (int document = 0; document < documentCount; document++) {
+            if (DEAD == documentUsers[document]) {
+                renumbered[document] = MISSING;
+                continue;
+            }
+            renumbered[document] = live;
+            documentUsers[live] = documentUsers[document];
+            documentTrigrams[live] = documentTrigrams[document];
+            documentsByUser.put(documentUsers[live], live, MISSING);
+            live++;
+        }
+        // Posting lists left empty give up their slot; the others move down and are mapped again
+        postingSlots.clear();
+        var kept = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (0 == slotPostings[slot].renumber(renumbered)) continue;
+            slotTrigrams[kept] = slotTrigrams[slot];
+            slotPostings[kept] = slotPostings[slot];
+            postingSlots.put(slotTrigrams[kept], kept, MISSING);
+            kept++;
+        }
+        Arrays.fill(slotPostings, kept, slotCount, null);
+        slotCount = kept;
+        documentCount = live;
+        deadCount = 0;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Matches {
+        // Best match first
+        private final long[] userIds;
+        // The latency budget ran out before every posting list was read
+        private final boolean truncated;
+    }
+
+    private static class Postings {
+
+        private int[] documents = new int[4];
+        private int size;
+
+        private void add(int document) {
+            if (size == documents.length) documents = Arrays.copyOf(documents, size + (size >> 1) + 1);
+            documents[size++] = document;
+        }
+
+        private int renumber(int[] renumbered) {
+            var kept = 0;
+            for (int i = 0; i < size; i++) {
+                var document = renumbered[documents[i]];
+                if (MISSING != document) documents[kept++] = document;
+            }
+            size = kept;
+            if (size < documents.length >> 2) documents = Arrays.copyOf(documents, Math.max(size, 4));
+            return size;
+        }
+    }
+
+    // Best documents by score, kept sorted with insertion since limits are small
+    private static class TopDocuments {
+
+        private final int[] documents;
+        private final double[] scores;
+        private int size;
+
+        private TopDocuments(int limit) {
+            this.documents = new int[limit];
+            this.scores = new double[limit];
+        }
+
+        private void offer(int document, double score) {
+            if (size == documents.length && score <= scores[size - 1]) return;
+
+            var position = size == documents.length ? size - 1 : size++;
+            while (position > 0 && scores[position - 1] < score) {
+                documents[position] = documents[position - 1];
+                scores[position] = scores[position - 1];
+                position--;
+            }
+            documents[position] = document;
+            scores[position] = score;
+        }
+    }
+}
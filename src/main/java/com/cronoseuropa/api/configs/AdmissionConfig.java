@@ -0,0 +1,42 @@
+package com.cronoseuropa.api.configs;
+
+import com.cronoseuropa.api.utils.RateLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+// Per-client rate limits on the users API, with separate budgets for reads and writes.
+// The concurrency limit on repository calls is in ConcurrencyLimitAspect.
+@Configuration
+public class AdmissionConfig implements WebMvcConfigurer {
+
+    @Value("${cronos.rate-limit.enabled:false}")
+    private boolean enabled;
+    @Value("${cronos.rate-limit.api-key-header:X-Api-Key}")
+    private String apiKeyHeader;
+    @Value("${cronos.rate-limit.read.permits-per-second:200}")
+    private double readPermitsPerSecond;
+    @Value("${cronos.rate-limit.read.burst:400}")
+    private int readBurst;
+    @Value("${cronos.rate-limit.write.permits-per-second:50}")
+    private double writePermitsPerSecond;
+    @Value("${cronos.rate-limit.write.burst:100}")
+    private int writeBurst;
+    @Value("${cronos.rate-limit.idle-timeout:10m}")
+    private Duration idleTimeout;
+    @Value("${cronos.rate-limit.maximum-clients:100000}")
+    private long maximumClients;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!enabled) return;
+
+        var readLimiter = new RateLimiter(readPermitsPerSecond, readBurst, idleTimeout, maximumClients);
+        var writeLimiter = new RateLimiter(writePermitsPerSecond, writeBurst, idleTimeout, maximumClients);
+        registry.addInterceptor(new RateLimitInterceptor(readLimiter, writeLimiter, apiKeyHeader))
+                .addPathPatterns("/users", "/users/**");
+    }
+}
@@ -0,0 +1,37 @@
+package com.cronoseuropa.api.configs;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+// Runs the Callable and streaming handlers of the users API off the servlet container's threads,
+// so a slow database fills the request executor's queue instead of Tomcat's pool.
+// The sync mode keeps them on Tomcat's threads, as a baseline for the other modes.
+@Configuration
+public class AsyncConfig implements WebMvcConfigurer {
+
+    private final ExecutorService usersRequestExecutor;
+    private final ExecutionConfig.Mode mode;
+    private final Duration timeout;
+
+    public AsyncConfig(ExecutorService usersRequestExecutor,
+                       @Value("${cronos.execution.mode:bounded}") ExecutionConfig.Mode mode,
+                       @Value("${cronos.execution.timeout:30s}") Duration timeout) {
+        this.usersRequestExecutor = usersRequestExecutor;
+        this.mode = mode;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(
+                mode == ExecutionConfig.Mode.SYNC ? new SyncTaskExecutor() : usersRequestExecutor));
+        configurer.setDefaultTimeout(timeout.toMillis());
+    }
+}
@@ -1,7 +1,9 @@
 package com.cronoseuropa.api.configs;
 
+import com.cronoseuropa.api.exceptions.CronosApiException;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Info;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -16,4 +18,9 @@ public class BeansConfig {
 
         return new OpenAPI().info(info);
     }
+
+    @Value("${cronos.exceptions.stack-trace:false}")
+    public void setExceptionStackTraces(boolean enabled) {
+        CronosApiException.setStackTraceEnabled(enabled);
+    }
 }
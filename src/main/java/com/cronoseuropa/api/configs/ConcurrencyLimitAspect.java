@@ -0,0 +1,65 @@
+package com.cronoseuropa.api.configs;
+
+import com.cronoseuropa.api.exceptions.CronosServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Sheds load once too many UserRepository calls are running at the same time, instead of letting
+// them queue for a database connection. Shed calls fail with 503.
+// A call returning a Stream keeps its connection until the stream is closed, and so keeps its slot.
+@Aspect
+@Component
+@ConditionalOnProperty(name = "cronos.concurrency-limit.enabled", havingValue = "true")
+public class ConcurrencyLimitAspect {
+
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter shed;
+
+    public ConcurrencyLimitAspect(MeterRegistry meterRegistry,
+                                  @Value("${cronos.concurrency-limit.max-in-flight:64}") int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        this.shed = Counter.builder("cronos.users.repository.shed")
+                .description("Repository calls rejected by the concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("cronos.users.repository.in_flight", inFlight, AtomicInteger::get)
+                .description("Repository calls currently running")
+                .register(meterRegistry);
+    }
+
+    @Around("target(com.cronoseuropa.api.repositories.UserRepository)")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            shed.increment();
+            throw new CronosServiceUnavailableException("The server is busy, please retry later", 5033);
+        }
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable ex) {
+            inFlight.decrementAndGet();
+            throw ex;
+        }
+
+        if (result instanceof Stream) {
+            var released = new AtomicBoolean();
+            return ((Stream<?>) result).onClose(() -> {
+                if (released.compareAndSet(false, true)) inFlight.decrementAndGet();
+            });
+        }
+        inFlight.decrementAndGet();
+        return result;
+    }
+}
@@ -3,66 +3,114 @@ package com.cronoseuropa.api.configs;
 import com.cronoseuropa.api.exceptions.CronosApiException;
 import com.cronoseuropa.api.exceptions.CronosBadRequestException;
 import com.cronoseuropa.api.exceptions.CronosInternalErrorException;
+import com.cronoseuropa.api.exceptions.CronosServiceUnavailableException;
+import com.cronoseuropa.api.exceptions.CronosTooManyRequestsException;
+import com.cronoseuropa.api.exceptions.CustomError;
+import com.cronoseuropa.api.exceptions.UserChangeFeedResyncException;
 import com.cronoseuropa.api.exceptions.UserNotFoundException;
-import lombok.Getter;
-import lombok.Setter;
+import com.cronoseuropa.api.exceptions.UserVersionConflictException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
-import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import javax.servlet.http.HttpServletRequest;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
-import java.util.Map;
-import java.util.stream.Collectors;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class CustomExceptionHandler {
 
-    @ResponseStatus(HttpStatus.NOT_FOUND)
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<Long, Counter> exceptionCounters = new ConcurrentHashMap<>();
+
     @ExceptionHandler(value = {UserNotFoundException.class})
-    public CustomError handleNotFoundException(CronosApiException ex, HttpServletRequest request) {
-        return new CustomError(request,
-                String.format("description=%s", ex.getDescription()),
-                String.format("internalCode=%d", ex.getCode()));
+    public ResponseEntity<CustomError> handleNotFoundException(CronosApiException ex, HttpServletRequest request) {
+        return countedError(request, HttpStatus.NOT_FOUND, ex);
     }
 
-    @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(value = {CronosBadRequestException.class})
-    public CustomError handleBadRequestException(CronosApiException ex, HttpServletRequest request) {
-        return new CustomError(request,
-                String.format("description=%s", ex.getDescription()),
-                String.format("internalCode=%d", ex.getCode()));
+    public ResponseEntity<CustomError> handleBadRequestException(CronosApiException ex, HttpServletRequest request) {
+        return countedError(request, HttpStatus.BAD_REQUEST, ex);
+    }
+
+    @ExceptionHandler(value = {UserVersionConflictException.class})
+    public ResponseEntity<CustomError> handleVersionConflictException(CronosApiException ex,
+                                                                      HttpServletRequest request) {
+        return countedError(request, HttpStatus.PRECONDITION_FAILED, ex);
+    }
+
+    @ExceptionHandler(value = {UserChangeFeedResyncException.class})
+    public ResponseEntity<CustomError> handleChangeFeedResyncException(CronosApiException ex,
+                                                                       HttpServletRequest request) {
+        return countedError(request, HttpStatus.GONE, ex);
+    }
+
+    @ExceptionHandler(value = {CronosTooManyRequestsException.class})
+    public ResponseEntity<CustomError> handleTooManyRequestsException(CronosTooManyRequestsException ex,
+                                                                      HttpServletRequest request,
+                                                                      HttpServletResponse response) {
+        var retryAfter = ex.getRetryAfter();
+        if (null != retryAfter) {
+            // Whole seconds, rounded up so that a client retrying right on time isn't rejected again
+            var seconds = retryAfter.getSeconds() + (retryAfter.getNano() > 0 ? 1 : 0);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        }
+        return countedError(request, HttpStatus.TOO_MANY_REQUESTS, ex);
+    }
+
+    @ExceptionHandler(value = {CronosServiceUnavailableException.class})
+    public ResponseEntity<CustomError> handleServiceUnavailableException(CronosApiException ex,
+                                                                         HttpServletRequest request) {
+        return countedError(request, HttpStatus.SERVICE_UNAVAILABLE, ex);
+    }
+
+    // The request executor's queue is full
+    @ExceptionHandler(value = {RejectedExecutionException.class})
+    public ResponseEntity<CustomError> handleRejectedExecutionException(HttpServletRequest request) {
+        return countedError(request, HttpStatus.SERVICE_UNAVAILABLE,
+                new CronosServiceUnavailableException("The server is busy, please retry later", 5030));
     }
 
-    @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     @ExceptionHandler(value = CronosInternalErrorException.class)
-    public CustomError handleThorthulRuntimeException(CronosApiException ex, HttpServletRequest request) {
-        return new CustomError(request,
-                String.format("description=%s", ex.getDescription()),
-                String.format("internalCode=%d", ex.getCode()));
+    public ResponseEntity<CustomError> handleThorthulRuntimeException(CronosApiException ex,
+                                                                      HttpServletRequest request) {
+        return countedError(request, HttpStatus.INTERNAL_SERVER_ERROR, ex);
     }
-    @Getter
-    @Setter
-    public static class CustomError {
 
-        private String timestamp;
-        private String path;
-        private Map<String, String> error;
+    private ResponseEntity<CustomError> countedError(HttpServletRequest request, HttpStatus status,
+                                                     CronosApiException ex) {
+        exceptionCounters.computeIfAbsent(ex.getCode(), code -> Counter.builder("cronos.exceptions")
+                        .description("Cronos exceptions reported to clients, by internal code")
+                        .tag("code", String.valueOf(code))
+                        .tag("exception", ex.getClass().getSimpleName())
+                        .register(meterRegistry))
+                .increment();
+        var response = ResponseEntity.status(status);
+        // Errors are negotiated like any other body, as JSON or CBOR. A client that accepts neither, such as
+        // an EventSource or a CSV download, gets JSON rather than a 406 in place of the error. The type is set
+        // on the entity, as Spring only honours a preset content type it can read back from the headers.
+        if (!acceptsErrorBody(request)) response.contentType(MediaType.APPLICATION_JSON);
+        return response.body(CustomError.of(request.getRequestURI(), ex));
+    }
 
-        public CustomError(HttpServletRequest req, String... args) {
-            this.timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
-            this.path = req.getRequestURI();
-            if (args.length == 0)
-                this.error = null;
-            this.error = Arrays.stream(args)
-                    .map(s -> s.split("="))
-                    .collect(Collectors.toMap(
-                            s -> s[0],
-                            s -> s[1]
-                    ));
+    private static boolean acceptsErrorBody(HttpServletRequest request) {
+        try {
+            var accepted = MediaType.parseMediaTypes(request.getHeader(HttpHeaders.ACCEPT));
+            return accepted.isEmpty() || accepted.stream().anyMatch(mediaType -> mediaType.getQualityValue() > 0
+                    && (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)
+                    || mediaType.isCompatibleWith(MediaType.APPLICATION_CBOR)));
+        } catch (InvalidMediaTypeException ex) {
+            return false;
         }
     }
 }
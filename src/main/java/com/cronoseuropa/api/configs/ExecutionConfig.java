@@ -0,0 +1,48 @@
+package com.cronoseuropa.api.configs;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ExecutionConfig {
+
+    // sync runs handlers on the servlet container's threads, as plain controllers would; see AsyncConfig
+    public enum Mode {SYNC, BOUNDED, VIRTUAL}
+
+    @Value("${cronos.execution.mode:bounded}")
+    private Mode mode;
+    @Value("${cronos.execution.pool-size:32}")
+    private int poolSize;
+    @Value("${cronos.execution.queue-capacity:1000}")
+    private int queueCapacity;
+
+    // Bounded mode rejects work once the queue is full; queue depth and task timings are published as metrics
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService usersRequestExecutor(MeterRegistry meterRegistry) {
+        var executor = mode == Mode.VIRTUAL ? newVirtualThreadPerTaskExecutor() : new ThreadPoolExecutor(
+                poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("users-request-"));
+
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "users.requests");
+    }
+
+    // Looked up reflectively so the build keeps targeting Java 11; the mode fails fast on older runtimes
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("cronos.execution.mode=virtual requires Java 21 or newer", ex);
+        }
+    }
+}
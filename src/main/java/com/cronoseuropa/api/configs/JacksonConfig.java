@@ -0,0 +1,57 @@
+package com.cronoseuropa.api.configs;
+
+import com.cronoseuropa.api.exceptions.CustomError;
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import com.cronoseuropa.api.utils.CustomErrorSerializer;
+import com.cronoseuropa.api.utils.UserResponseDTOSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+// Module beans are registered by Spring Boot on every ObjectMapper it builds, the CBOR one included
+@Configuration
+public class JacksonConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder;
+
+    public JacksonConfig(ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder) {
+        this.objectMapperBuilder = objectMapperBuilder;
+    }
+
+    @Bean
+    public Module cronosSerializersModule() {
+        return serializersModule();
+    }
+
+    // The DTOs on the hot paths are written by hand
+    public static Module serializersModule() {
+        return new SimpleModule("cronos-serializers")
+                .addSerializer(UserResponseDTO.class, new UserResponseDTOSerializer())
+                .addSerializer(CustomError.class, new CustomErrorSerializer());
+    }
+
+    // Generates bytecode accessors for every other bean that is (de)serialized
+    @Bean
+    @ConditionalOnProperty(name = "cronos.json.blackbird", havingValue = "true")
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    // Added last, so JSON stays the default and CBOR is only used when the client asks for it
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        var cborMapper = objectMapperBuilder.getObject().factory(new CBORFactory()).build();
+        converters.add(new MappingJackson2CborHttpMessageConverter(cborMapper));
+    }
+}
@@ -0,0 +1,49 @@
+package com.cronoseuropa.api.configs;
+
+import com.cronoseuropa.api.exceptions.CronosTooManyRequestsException;
+import com.cronoseuropa.api.utils.RateLimiter;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+
+// Rejects a client's request before it reaches the controller once the client has used up its budget.
+// Clients are told apart by their API key header, or by remote address when they don't send one.
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final RateLimiter readLimiter;
+    private final RateLimiter writeLimiter;
+    private final String apiKeyHeader;
+
+    public RateLimitInterceptor(RateLimiter readLimiter, RateLimiter writeLimiter, String apiKeyHeader) {
+        this.readLimiter = readLimiter;
+        this.writeLimiter = writeLimiter;
+        this.apiKeyHeader = apiKeyHeader;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The async dispatch that completes a Callable handler was already admitted
+        if (request.getDispatcherType() == DispatcherType.ASYNC) return true;
+
+        var limiter = isRead(request) ? readLimiter : writeLimiter;
+        var wait = limiter.tryAcquire(clientKey(request));
+        if (wait > 0)
+            throw new CronosTooManyRequestsException("Too many requests, please retry later", 3002,
+                    Duration.ofNanos(wait));
+        return true;
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        var apiKey = request.getHeader(apiKeyHeader);
+        return null == apiKey || apiKey.isEmpty() ? "addr:" + request.getRemoteAddr() : "key:" + apiKey;
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        var method = request.getMethod();
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method);
+    }
+}
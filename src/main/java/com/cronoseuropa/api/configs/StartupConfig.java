@@ -0,0 +1,19 @@
+package com.cronoseuropa.api.configs;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+@Configuration
+public class StartupConfig {
+
+    // The request executor stops Spring Boot from creating its own task executor, which deferred
+    // repositories would otherwise use to bootstrap the EntityManagerFactory off the main thread
+    @Bean
+    @ConditionalOnProperty(name = "spring.data.jpa.repositories.bootstrap-mode", havingValue = "deferred")
+    public AsyncTaskExecutor jpaBootstrapExecutor() {
+        return new SimpleAsyncTaskExecutor("jpa-bootstrap-");
+    }
+}
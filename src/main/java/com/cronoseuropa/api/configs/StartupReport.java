@@ -0,0 +1,49 @@
+package com.cronoseuropa.api.configs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.stream.Collectors;
+
+// Logs the slowest bean instantiations once the application is ready. Needs the buffering
+// ApplicationStartup set up in ApiApplication; the full timeline is on the actuator startup endpoint.
+@Slf4j
+@Component
+public class StartupReport implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final String BEAN_INSTANTIATION_STEP = "spring.beans.instantiate";
+
+    @Value("${cronos.startup.report.enabled:true}")
+    private boolean enabled;
+    @Value("${cronos.startup.report.top:10}")
+    private int top;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        var startup = event.getApplicationContext().getApplicationStartup();
+        if (!enabled || !(startup instanceof BufferingApplicationStartup)) return;
+
+        var timeline = ((BufferingApplicationStartup) startup).getBufferedTimeline();
+        var slowest = timeline.getEvents().stream()
+                .filter(timelineEvent -> BEAN_INSTANTIATION_STEP.equals(timelineEvent.getStartupStep().getName()))
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(top)
+                .map(StartupReport::describe)
+                .collect(Collectors.joining("\n  ", "\n  ", ""));
+
+        log.info("Ready in {} ms, slowest bean instantiations:{}", event.getTimeTaken().toMillis(), slowest);
+    }
+
+    private static String describe(StartupTimeline.TimelineEvent timelineEvent) {
+        var beanName = "?";
+        for (var tag : timelineEvent.getStartupStep().getTags())
+            if ("beanName".equals(tag.getKey())) beanName = tag.getValue();
+        return timelineEvent.getDuration().toMillis() + " ms " + beanName;
+    }
+}
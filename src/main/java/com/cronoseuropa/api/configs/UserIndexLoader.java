@@ -0,0 +1,61 @@
+package com.cronoseuropa.api.configs;
+
+import com.cronoseuropa.api.caches.UserBirthDateStats;
+import com.cronoseuropa.api.caches.UserTrigramIndex;
+import com.cronoseuropa.api.services.UserTableScanner;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+// Fills the in-memory user indexes from one parallel scan of the table, on a background thread once the
+// application is ready, so a large table doesn't hold back readiness. Until the build finishes, fuzzy search
+// and statistics answer 503; writes served meanwhile are applied to the indexes as usual.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserIndexLoader implements ApplicationListener<ApplicationReadyEvent> {
+
+    private final UserTableScanner userTableScanner;
+    private final UserTrigramIndex userTrigramIndex;
+    private final UserBirthDateStats userBirthDateStats;
+
+    @Value("${cronos.users.fuzzy.enabled:true}")
+    private boolean fuzzyEnabled;
+    @Value("${cronos.users.stats.enabled:true}")
+    private boolean statsEnabled;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!fuzzyEnabled && !statsEnabled) return;
+
+        var loader = new Thread(() -> {
+            try {
+                load();
+            } catch (RuntimeException ex) {
+                log.error("Failed to load the user indexes, fuzzy search and statistics stay unavailable", ex);
+            }
+        }, "user-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void load() {
+        var start = System.nanoTime();
+        if (fuzzyEnabled) userTrigramIndex.beginBuild();
+        if (statsEnabled) userBirthDateStats.beginBuild();
+        userTableScanner.scan(users -> {
+            if (fuzzyEnabled) userTrigramIndex.load(users);
+            if (statsEnabled) userBirthDateStats.load(users);
+        });
+        if (fuzzyEnabled) userTrigramIndex.finishBuild();
+        if (statsEnabled) userBirthDateStats.finishBuild();
+
+        log.info("Loaded the user indexes in {} ms", (System.nanoTime() - start) / 1_000_000);
+        if (fuzzyEnabled)
+            log.info("Indexed {} users for fuzzy search, about {} KB", userTrigramIndex.size(),
+                    userTrigramIndex.estimatedBytes() / 1024);
+    }
+}
@@ -0,0 +1,39 @@
+package com.cronoseuropa.api.configs;
+
+import com.cronoseuropa.api.repositories.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Runs the hot read queries once before the application reports ready, so the first requests don't pay for
+// Hibernate's query plan compilation or for H2 preparing the statements. Id 0 is never allocated, so nothing is read.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserRepositoryWarmUp implements ApplicationRunner {
+
+    private final UserRepository userRepository;
+
+    @Value("${cronos.warm-up.enabled:true}")
+    private boolean enabled;
+    @Value("${cronos.users.page.default-limit:100}")
+    private int defaultPageLimit;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+
+        var start = System.nanoTime();
+        userRepository.findResponseById(0L);
+        userRepository.findAllResponsesByIdIn(List.of(0L));
+        userRepository.findResponsePage(Long.MAX_VALUE, PageRequest.of(0, defaultPageLimit));
+        userRepository.existsById(0L);
+        log.info("Warmed up user queries in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,46 @@
+package com.cronoseuropa.api.controllers;
+
+import com.cronoseuropa.api.caches.UserResponseCache;
+import com.cronoseuropa.api.models.dtos.CacheRegionStatsResponseDTO;
+import com.cronoseuropa.api.models.dtos.CacheStatsResponseDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/caches")
+@RequiredArgsConstructor
+public class CacheController {
+
+    private final UserResponseCache userResponseCache;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Operation(summary = "Hit, miss and eviction counters of the user cache")
+    @GetMapping(path = "/users", produces = "application/json")
+    public ResponseEntity<CacheStatsResponseDTO> userCacheStats() {
+        return ResponseEntity.ok(userResponseCache.stats());
+    }
+
+    @Operation(summary = "Hit, miss and put counters of the Hibernate second-level and query cache regions")
+    @GetMapping(path = "/hibernate", produces = "application/json")
+    public ResponseEntity<List<CacheRegionStatsResponseDTO>> hibernateCacheStats() {
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        var regions = new ArrayList<CacheRegionStatsResponseDTO>();
+        for (var region : statistics.getSecondLevelCacheRegionNames()) {
+            var stats = statistics.getCacheRegionStatistics(region);
+            if (null == stats) continue;
+            regions.add(new CacheRegionStatsResponseDTO(region, stats.getElementCountInMemory(), stats.getHitCount(),
+                    stats.getMissCount(), stats.getPutCount()));
+        }
+        return ResponseEntity.ok(regions);
+    }
+}
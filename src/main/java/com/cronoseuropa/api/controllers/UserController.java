@@ -1,10 +1,31 @@
 package com.cronoseuropa.api.controllers;
 
-import com.cronoseuropa.api.configs.CustomExceptionHandler;
+import com.cronoseuropa.api.caches.UserTableVersion;
 import com.cronoseuropa.api.exceptions.CronosApiException;
+import com.cronoseuropa.api.exceptions.CronosBadRequestException;
+import com.cronoseuropa.api.exceptions.CustomError;
+import com.cronoseuropa.api.exceptions.UserChangeFeedResyncException;
+import com.cronoseuropa.api.models.dtos.BatchItemResultDTO;
 import com.cronoseuropa.api.models.dtos.SaveUserRequestDTO;
+import com.cronoseuropa.api.models.dtos.UserChangeDTO;
+import com.cronoseuropa.api.models.dtos.UserChangesResponseDTO;
+import com.cronoseuropa.api.models.dtos.UserFuzzySearchResponseDTO;
+import com.cronoseuropa.api.models.dtos.UserImportResponseDTO;
+import com.cronoseuropa.api.models.dtos.UserLookupResponseDTO;
 import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import com.cronoseuropa.api.models.dtos.UserSearchFilterDTO;
+import com.cronoseuropa.api.models.dtos.UserStatsCheckResponseDTO;
+import com.cronoseuropa.api.models.dtos.UserStatsResponseDTO;
+import com.cronoseuropa.api.services.UserBatchService;
+import com.cronoseuropa.api.services.UserChangeFeed;
 import com.cronoseuropa.api.services.UserService;
+import com.cronoseuropa.api.services.UserStatsService;
+import com.cronoseuropa.api.utils.ETags;
+import com.cronoseuropa.api.utils.SaveUserRequestReader;
+import com.cronoseuropa.api.utils.UserCsv;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.Parameters;
@@ -16,19 +37,73 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.Collection;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
 
+import static com.cronoseuropa.api.utils.Util.parseDate;
 import static com.cronoseuropa.api.utils.Util.sanitizeId;
 
+// Database work runs in Callables on the request executor (see AsyncConfig), not on servlet container threads.
+// Read endpoints also answer in CBOR when the client accepts application/cbor.
 @RestController
 @RequestMapping("/users")
 @RequiredArgsConstructor
 public class UserController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String NDJSON = "application/x-ndjson";
+
     private final UserService userService;
+    private final UserBatchService userBatchService;
+    private final UserStatsService userStatsService;
+    private final UserTableVersion userTableVersion;
+    private final UserChangeFeed userChangeFeed;
+    private final ObjectMapper objectMapper;
+
+    @Value("${cronos.users.page.default-limit:100}")
+    private int defaultPageLimit;
+    @Value("${cronos.users.page.max-limit:1000}")
+    private int maxPageLimit;
+    @Value("${cronos.users.lookup.max-ids:1000}")
+    private int maxLookupIds;
+    @Value("${cronos.users.transfer.timeout:30m}")
+    private Duration transferTimeout;
+    @Value("${cronos.users.changes.max-batch:500}")
+    private int maxChangeBatch;
+    @Value("${cronos.users.changes.max-wait:30s}")
+    private Duration maxChangeWait;
+    @Value("${cronos.users.changes.stream-timeout:30m}")
+    private Duration changeStreamTimeout;
+    @Value("${cronos.users.fuzzy.default-limit:20}")
+    private int defaultFuzzyLimit;
+    @Value("${cronos.users.fuzzy.max-limit:100}")
+    private int maxFuzzyLimit;
+    @Value("${cronos.users.fuzzy.max-query-length:64}")
+    private int maxFuzzyQueryLength;
+    @Value("${cronos.users.strict-ids:false}")
+    private boolean strictIds;
 
     @Operation(summary = "Create a new user")
     @ApiResponses(value = {
@@ -43,7 +118,7 @@ public class UserController {
                             mediaType = "application/json")}),
             @ApiResponse(responseCode = "400", description = "Invalid date format. Please use 'yyyy-MM-dd'",
                     content = {@Content(
-                            schema = @Schema(implementation = CustomExceptionHandler.CustomError.class),
+                            schema = @Schema(implementation = CustomError.class),
                             examples = @ExampleObject(value = "{\n" +
                                     "    \"timestamp\": \"2023-12-13 01:02\",\n" +
                                     "    \"path\": \"/users\",\n" +
@@ -64,9 +139,38 @@ public class UserController {
                             "    \"birthDate\":\"1999-11-30\"\n" +
                             "}")))
     @PostMapping(consumes = "application/json", produces = "application/json")
-    public ResponseEntity<UserResponseDTO> createUser(@RequestBody SaveUserRequestDTO dto) {
-        var createdUser = userService.create(dto);
-        return ResponseEntity.status(201).body(createdUser);
+    public Callable<ResponseEntity<UserResponseDTO>> createUser(@RequestBody SaveUserRequestDTO dto) {
+        return () -> {
+            var createdUser = userService.create(dto);
+            return ResponseEntity.created(URI.create("/users/" + createdUser.getId())).body(createdUser);
+        };
+    }
+
+    @Operation(summary = "Create many users",
+            description = "Accepts a JSON array or newline-delimited JSON of users. Users are persisted in chunked "
+                    + "transactions and one result is returned per input item, in input order. Responds 201 when every "
+                    + "user was created and 207 otherwise.")
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "User DTOs",
+            required = true,
+            content = @Content(
+                    mediaType = "application/json",
+                    examples = @ExampleObject(value = "[\n" +
+                            "    {\"name\":\"van-romel\", \"surname\":\"neto\", \"birthDate\":\"1999-11-30\"},\n" +
+                            "    {\"name\":\"joao\", \"surname\":\"carreira\", \"birthDate\":\"1993-01-12\"}\n" +
+                            "]")))
+    @PostMapping(path = "/batch", consumes = {"application/json", NDJSON}, produces = "application/json")
+    public Callable<ResponseEntity<List<BatchItemResultDTO>>> createUsers(HttpServletRequest request) {
+        return () -> {
+            var results = new ArrayList<BatchItemResultDTO>();
+            try (var requests = SaveUserRequestReader.json(objectMapper, request.getInputStream())) {
+                userBatchService.createAll(requests, results::add);
+            }
+            results.sort(Comparator.comparingInt(BatchItemResultDTO::getIndex));
+
+            var allCreated = results.stream()
+                    .allMatch(result -> result.getStatus() == BatchItemResultDTO.Status.CREATED);
+            return ResponseEntity.status(allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(results);
+        };
     }
 
     @ApiResponses(value = {
@@ -88,12 +192,251 @@ public class UserController {
                     )}
             )
     })
-    @Operation(summary = "Find all users")
-    @GetMapping(produces = "application/json")
-    public ResponseEntity<Collection<UserResponseDTO>> findAllUsers() {
-        var users = userService.findAll();
+    @Operation(summary = "Find all users, one page at a time",
+            description = "Pages are ordered by id. Pass the X-Next-Cursor response header as 'after' to get the next page; "
+                    + "the header is absent on the last page.")
+    @Parameters(value = {
+            @Parameter(name = "after", description = "Cursor returned by the previous page"),
+            @Parameter(name = "limit", description = "Page size, capped by the server"),
+    })
+    @GetMapping(produces = {"application/json", MediaType.APPLICATION_CBOR_VALUE})
+    public Callable<ResponseEntity<List<UserResponseDTO>>> findAllUsers(@RequestParam(name = "after", defaultValue = "0") Long after,
+                                                                        @RequestParam(name = "limit", required = false) Integer limit,
+                                                                        @RequestHeader(name = "If-None-Match", required = false) String ifNoneMatch,
+                                                                        @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+        // Checked before querying: an unchanged table means an unchanged page
+        var mediaType = representation(accept);
+        var eTag = ETags.forMediaType(userTableVersion.eTag(), mediaType);
+        if (ETags.matches(ifNoneMatch, eTag)) return () -> notModified(eTag);
+
+        int pageLimit = pageLimit(limit);
+        return () -> pageResponse(userService.findPage(after, pageLimit), pageLimit, eTag, mediaType);
+    }
+
+    @Operation(summary = "Find many users by id",
+            description = "Takes a comma-separated list of ids. 'users' has one entry per requested id, in request "
+                    + "order, null where no user has that id; 'missing' lists those ids.")
+    @Parameters(value = {
+            @Parameter(name = "ids", description = "Comma-separated user ids, capped by the server"),
+    })
+    @GetMapping(params = "ids", produces = {"application/json", MediaType.APPLICATION_CBOR_VALUE})
+    public Callable<ResponseEntity<UserLookupResponseDTO>> findUsersByIds(@RequestParam(name = "ids") List<String> ids) {
+        var userIds = sanitizeIds(ids);
+        return () -> ResponseEntity.ok(userService.findAllByIds(userIds));
+    }
+
+    @Operation(summary = "Find many users by id",
+            description = "Same as GET /users?ids=..., for id lists too long for a query string.")
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "User ids",
+            required = true,
+            content = @Content(
+                    mediaType = "application/json",
+                    examples = @ExampleObject(value = "[1, 2, 3]")))
+    @PostMapping(path = "/lookup", consumes = "application/json",
+            produces = {"application/json", MediaType.APPLICATION_CBOR_VALUE})
+    public Callable<ResponseEntity<UserLookupResponseDTO>> lookupUsers(@RequestBody List<String> ids) {
+        var userIds = sanitizeIds(ids);
+        return () -> ResponseEntity.ok(userService.findAllByIds(userIds));
+    }
+
+    @Operation(summary = "Search users by name, surname and birth date",
+            description = "Name and surname match by prefix unless match=exact. Birth date bounds are inclusive. "
+                    + "Paginated like GET /users.")
+    @Parameters(value = {
+            @Parameter(name = "name", description = "User name or name prefix"),
+            @Parameter(name = "surname", description = "User surname or surname prefix"),
+            @Parameter(name = "match", description = "'prefix' (default) or 'exact'"),
+            @Parameter(name = "birthDateFrom", description = "Earliest birth date, 'yyyy-MM-dd'"),
+            @Parameter(name = "birthDateTo", description = "Latest birth date, 'yyyy-MM-dd'"),
+            @Parameter(name = "after", description = "Cursor returned by the previous page"),
+            @Parameter(name = "limit", description = "Page size, capped by the server"),
+    })
+    @GetMapping(path = "/search", produces = {"application/json", MediaType.APPLICATION_CBOR_VALUE})
+    public Callable<ResponseEntity<List<UserResponseDTO>>> searchUsers(@RequestParam(name = "name", required = false) String name,
+                                                                       @RequestParam(name = "surname", required = false) String surname,
+                                                                       @RequestParam(name = "match", defaultValue = "prefix") String match,
+                                                                       @RequestParam(name = "birthDateFrom", required = false) String birthDateFrom,
+                                                                       @RequestParam(name = "birthDateTo", required = false) String birthDateTo,
+                                                                       @RequestParam(name = "after", defaultValue = "0") Long after,
+                                                                       @RequestParam(name = "limit", required = false) Integer limit,
+                                                                       @RequestHeader(name = "If-None-Match", required = false) String ifNoneMatch,
+                                                                       @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+        var filter = new UserSearchFilterDTO(name, surname, exactMatch(match),
+                parseDate(birthDateFrom), parseDate(birthDateTo));
+
+        var mediaType = representation(accept);
+        var eTag = ETags.forMediaType(userTableVersion.eTag(), mediaType);
+        if (ETags.matches(ifNoneMatch, eTag)) return () -> notModified(eTag);
+
+        int pageLimit = pageLimit(limit);
+        return () -> pageResponse(userService.search(filter, after, pageLimit), pageLimit, eTag, mediaType);
+    }
+
+    @Operation(summary = "Fuzzy search users by name and surname",
+            description = "Matches partial and misspelled names against an in-memory trigram index. Users are ranked "
+                    + "by the share of the query's trigrams they contain. When the search runs out of its latency "
+                    + "budget the best matches found so far are returned and 'truncated' is true.")
+    @Parameters(value = {
+            @Parameter(name = "q", description = "Name, surname or both, possibly misspelled"),
+            @Parameter(name = "limit", description = "Maximum number of matches, capped by the server"),
+    })
+    @GetMapping(path = "/fuzzy", produces = {"application/json", MediaType.APPLICATION_CBOR_VALUE})
+    public Callable<ResponseEntity<UserFuzzySearchResponseDTO>> fuzzySearchUsers(@RequestParam(name = "q") String query,
+                                                                                 @RequestParam(name = "limit", required = false) Integer limit) {
+        if (query.isBlank() || query.length() > maxFuzzyQueryLength)
+            throw new CronosBadRequestException("Invalid search query.", 1009);
+
+        int matchLimit = null == limit ? defaultFuzzyLimit : Math.min(Math.max(limit, 1), maxFuzzyLimit);
+        return () -> ResponseEntity.ok(userService.fuzzySearch(query, matchLimit));
+    }
+
+    @Operation(summary = "Users by birth year, birth month and age bucket",
+            description = "Served from in-memory counters kept up to date by every write, without reading the table.")
+    @GetMapping(path = "/stats", produces = {"application/json", MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<UserStatsResponseDTO> userStats(@RequestHeader(name = "If-None-Match", required = false) String ifNoneMatch,
+                                                          @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+        // Ages change with the day even when the table doesn't
+        var today = LocalDate.now();
+        var mediaType = representation(accept);
+        var eTag = ETags.forMediaType(userTableVersion.eTag(today), mediaType);
+        if (ETags.matches(ifNoneMatch, eTag)) return notModified(eTag);
 
-        return ResponseEntity.ok(users);
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(mediaType)
+                .body(userStatsService.stats(today));
+    }
+
+    @Operation(summary = "Check the birth date counters against the table",
+            description = "Runs a GROUP BY over the whole table and lists the birth months whose counts differ.")
+    @GetMapping(path = "/stats/check", produces = "application/json")
+    public Callable<ResponseEntity<UserStatsCheckResponseDTO>> checkUserStats() {
+        return () -> ResponseEntity.ok(userStatsService.check());
+    }
+
+    @Operation(summary = "Export all users as newline-delimited JSON or CSV",
+            description = "Picks the format from the Accept header. Users are streamed from the database as they are "
+                    + "written, in id order. GET /users/stream is the same newline-delimited JSON export.")
+    @GetMapping(path = {"/export", "/stream"}, produces = NDJSON)
+    public WebAsyncTask<ResponseEntity<Void>> exportUsersAsNdjson(HttpServletResponse response) {
+        return export(response, NDJSON, "users.ndjson", ndjsonWriter());
+    }
+
+    @Operation(summary = "Export all users as newline-delimited JSON or CSV")
+    @GetMapping(path = "/export", produces = UserCsv.MEDIA_TYPE)
+    public WebAsyncTask<ResponseEntity<Void>> exportUsersAsCsv(HttpServletResponse response) {
+        return export(response, UserCsv.MEDIA_TYPE, "users.csv", UserCsv.writer());
+    }
+
+    @Operation(summary = "Import users from a JSON array, newline-delimited JSON or CSV",
+            description = "Records are read one at a time and persisted in chunked transactions. Returns the number "
+                    + "of created, rejected and failed records and the first errors. Responds 201 when every record "
+                    + "was created and 207 otherwise.")
+    @PostMapping(path = "/import", consumes = {"application/json", NDJSON}, produces = "application/json")
+    public WebAsyncTask<ResponseEntity<UserImportResponseDTO>> importUsersFromJson(HttpServletRequest request) {
+        return importUsers(() -> SaveUserRequestReader.json(objectMapper, request.getInputStream()));
+    }
+
+    @Operation(summary = "Import users from a JSON array, newline-delimited JSON or CSV")
+    @PostMapping(path = "/import", consumes = UserCsv.MEDIA_TYPE, produces = "application/json")
+    public WebAsyncTask<ResponseEntity<UserImportResponseDTO>> importUsersFromCsv(HttpServletRequest request) {
+        return importUsers(() -> SaveUserRequestReader.csv(objectMapper, request.getInputStream()));
+    }
+
+    @Operation(summary = "Stream user changes as server-sent events",
+            description = "Sends the changes after the cursor given as 'after' or Last-Event-ID, then new changes as "
+                    + "they are committed. Without a cursor only new changes are sent. Each event id is a cursor. "
+                    + "A 'resync' event, after which the stream ends, means the client must reload all users.")
+    @Parameters(value = {
+            @Parameter(name = "after", description = "Cursor of the last change already applied"),
+    })
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(name = "after", required = false) String after,
+                                    @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        // A malformed cursor is a bad request, answered before the stream starts; only a cursor from
+        // a previous process lifetime is a reason to resync
+        var emitter = new SseEmitter(changeStreamTimeout.toMillis());
+        long start;
+        try {
+            start = userChangeFeed.parseCursor(null == lastEventId ? after : lastEventId);
+        } catch (UserChangeFeedResyncException ex) {
+            sendResync(emitter, ex);
+            return emitter;
+        }
+
+        Runnable subscriber = new Runnable() {
+            private long sequence = start;
+
+            // Called both from here and from the change feed's subscriber tasks
+            @Override
+            public synchronized void run() {
+                try {
+                    List<UserChangeDTO> changes;
+                    while (!(changes = userChangeFeed.readAfter(sequence, maxChangeBatch)).isEmpty()) {
+                        for (var change : changes) {
+                            emitter.send(SseEmitter.event()
+                                    .id(userChangeFeed.cursor(change.getSequence()))
+                                    .name("change")
+                                    .data(change, MediaType.APPLICATION_JSON));
+                            sequence = change.getSequence();
+                        }
+                    }
+                } catch (CronosApiException ex) {
+                    userChangeFeed.unsubscribe(this);
+                    sendResync(emitter, ex);
+                } catch (IOException | IllegalStateException ex) {
+                    // The client is gone or the emitter already completed
+                    userChangeFeed.unsubscribe(this);
+                    emitter.completeWithError(ex);
+                }
+            }
+        };
+
+        emitter.onCompletion(() -> userChangeFeed.unsubscribe(subscriber));
+        emitter.onTimeout(() -> userChangeFeed.unsubscribe(subscriber));
+        emitter.onError(error -> userChangeFeed.unsubscribe(subscriber));
+        userChangeFeed.subscribe(subscriber);
+        subscriber.run();
+        return emitter;
+    }
+
+    @Operation(summary = "Poll user changes",
+            description = "Returns the changes after the cursor, waiting up to 'wait' seconds for one when there are "
+                    + "none yet. Pass 'next' as 'after' on the following poll. Responds 410 when the changes after "
+                    + "the cursor are gone and the client must reload all users.")
+    @Parameters(value = {
+            @Parameter(name = "after", description = "Cursor of the last change already applied"),
+            @Parameter(name = "wait", description = "Seconds to wait for a change, capped by the server"),
+    })
+    @GetMapping(path = "/changes", produces = "application/json")
+    public DeferredResult<ResponseEntity<UserChangesResponseDTO>> pollChanges(@RequestParam(name = "after", required = false) String after,
+                                                                              @RequestParam(name = "wait", defaultValue = "0") long wait) {
+        var sequence = userChangeFeed.parseCursor(after);
+        var waitMillis = Math.min(Math.max(wait, 0) * 1000, maxChangeWait.toMillis());
+        var result = new DeferredResult<ResponseEntity<UserChangesResponseDTO>>(Math.max(waitMillis, 1),
+                ResponseEntity.ok(new UserChangesResponseDTO(List.of(), userChangeFeed.cursor(sequence))));
+
+        Runnable subscriber = () -> {
+            if (result.isSetOrExpired()) return;
+            try {
+                var changes = userChangeFeed.readAfter(sequence, maxChangeBatch);
+                if (changes.isEmpty()) return;
+
+                var next = userChangeFeed.cursor(changes.get(changes.size() - 1).getSequence());
+                result.setResult(ResponseEntity.ok(new UserChangesResponseDTO(changes, next)));
+            } catch (CronosApiException ex) {
+                result.setErrorResult(ex);
+            }
+        };
+
+        result.onCompletion(() -> userChangeFeed.unsubscribe(subscriber));
+        // Subscribed before the first read, so a change appended in between isn't missed
+        if (waitMillis > 0) userChangeFeed.subscribe(subscriber);
+        subscriber.run();
+        if (waitMillis == 0 && !result.hasResult())
+            result.setResult(ResponseEntity.ok(new UserChangesResponseDTO(List.of(), userChangeFeed.cursor(sequence))));
+        return result;
     }
 
     @ApiResponses(value = {
@@ -108,7 +451,7 @@ public class UserController {
                     )}),
             @ApiResponse(responseCode = "404", description = "User not found",
                     content = {@Content(
-                            schema = @Schema(implementation = CustomExceptionHandler.CustomError.class),
+                            schema = @Schema(implementation = CustomError.class),
                             examples = @ExampleObject(value = "{\n" +
                                     "    \"timestamp\": \"2023-12-13 00:59\",\n" +
                                     "    \"path\": \"/users/10\",\n" +
@@ -120,12 +463,26 @@ public class UserController {
                             mediaType = "application/json")})
     })
     @Operation(summary = "Find one user by id")
-    @GetMapping(path = "/{userId}", produces = "application/json")
-    public ResponseEntity<UserResponseDTO> findOneUserById(@PathVariable("userId") String userId) {
+    @GetMapping(path = "/{userId}", produces = {"application/json", MediaType.APPLICATION_CBOR_VALUE})
+    public Callable<ResponseEntity<UserResponseDTO>> findOneUserById(@PathVariable("userId") String userId,
+                                                                     @RequestHeader(name = "If-None-Match", required = false) String ifNoneMatch,
+                                                                     @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        var id = sanitizeId(userId, strictIds);
+        var mediaType = representation(accept);
 
-        var user = userService.findOneById(sanitizeId(userId));
+        return () -> {
+            var user = userService.findOneById(id);
 
-        return ResponseEntity.ok(user);
+            var eTag = ETags.of(user.getVersion(), mediaType);
+            if (ETags.matches(ifNoneMatch, eTag)) return notModified(eTag);
+
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .contentType(mediaType)
+                    .body(user);
+        };
     }
 
     @ApiResponses(value = {
@@ -140,7 +497,7 @@ public class UserController {
                     )}),
             @ApiResponse(responseCode = "400", description = "Invalid date format. Please use 'yyyy-MM-dd'",
                     content = {@Content(
-                            schema = @Schema(implementation = CustomExceptionHandler.CustomError.class),
+                            schema = @Schema(implementation = CustomError.class),
                             examples = @ExampleObject(value = "{\n" +
                                     "    \"timestamp\": \"2023-12-13 01:02\",\n" +
                                     "    \"path\": \"/users\",\n" +
@@ -152,7 +509,7 @@ public class UserController {
                     }),
             @ApiResponse(responseCode = "404", description = "User not found",
                     content = {@Content(
-                            schema = @Schema(implementation = CustomExceptionHandler.CustomError.class),
+                            schema = @Schema(implementation = CustomError.class),
                             examples = @ExampleObject(value = "{\n" +
                                     "    \"timestamp\": \"2023-12-13 00:59\",\n" +
                                     "    \"path\": \"/users/10\",\n" +
@@ -168,17 +525,25 @@ public class UserController {
             @Parameter(name = "name", description = "User name"),
             @Parameter(name = "surname", description = "User surname"),
             @Parameter(name = "birthDate", description = "User birth date"),
+            @Parameter(name = "If-Match", description = "ETag of the version being altered; 412 when it is stale"),
     })
     @PatchMapping(path = "/{userId}", produces = "application/json")
-    public ResponseEntity<UserResponseDTO> alterUserFieldsById(@PathVariable("userId") String userId,
-                                                               @RequestParam(name = "name", required = false) String name,
-                                                               @RequestParam(name = "surname", required = false) String surname,
-                                                               @RequestParam(name = "birthDate", required = false) String birthDate) {
+    public Callable<ResponseEntity<UserResponseDTO>> alterUserFieldsById(@PathVariable("userId") String userId,
+                                                                         @RequestParam(name = "name", required = false) String name,
+                                                                         @RequestParam(name = "surname", required = false) String surname,
+                                                                         @RequestParam(name = "birthDate", required = false) String birthDate,
+                                                                         @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+
+        var id = sanitizeId(userId, strictIds);
+        var expectedVersion = ETags.parseVersion(ifMatch);
 
-        var user = userService.alterFieldsById(sanitizeId(userId), name,
-                surname, birthDate);
+        return () -> {
+            var user = userService.alterFieldsById(id, name, surname, birthDate, expectedVersion);
 
-        return ResponseEntity.ok(user);
+            return ResponseEntity.ok()
+                    .eTag(ETags.of(user.getVersion()))
+                    .body(user);
+        };
     }
 
     @ApiResponses(value = {
@@ -193,7 +558,7 @@ public class UserController {
                     )}),
             @ApiResponse(responseCode = "400", description = "Invalid date format. Please use 'yyyy-MM-dd'",
                     content = {@Content(
-                            schema = @Schema(implementation = CustomExceptionHandler.CustomError.class),
+                            schema = @Schema(implementation = CustomError.class),
                             examples = @ExampleObject(value = "{\n" +
                                     "    \"timestamp\": \"2023-12-13 01:02\",\n" +
                                     "    \"path\": \"/users\",\n" +
@@ -205,7 +570,7 @@ public class UserController {
                     }),
             @ApiResponse(responseCode = "404", description = "User not found",
                     content = {@Content(
-                            schema = @Schema(implementation = CustomExceptionHandler.CustomError.class),
+                            schema = @Schema(implementation = CustomError.class),
                             examples = @ExampleObject(value = "{\n" +
                                     "    \"timestamp\": \"2023-12-13 00:59\",\n" +
                                     "    \"path\": \"/users/10\",\n" +
@@ -228,11 +593,19 @@ public class UserController {
                             "    \"birthDate\":\"1999-11-30\"\n" +
                             "}")))
     @PutMapping(path = "/{userId}", consumes = "application/json", produces = "application/json")
-    public ResponseEntity<UserResponseDTO> alterUser(@PathVariable("userId") String userId,
-                                                     @RequestBody SaveUserRequestDTO dto) {
-        var users = userService.alterById(sanitizeId(userId), dto);
+    public Callable<ResponseEntity<UserResponseDTO>> alterUser(@PathVariable("userId") String userId,
+                                                               @RequestBody SaveUserRequestDTO dto,
+                                                               @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+        var id = sanitizeId(userId, strictIds);
+        var expectedVersion = ETags.parseVersion(ifMatch);
+
+        return () -> {
+            var user = userService.alterById(id, dto, expectedVersion);
 
-        return ResponseEntity.ok(users);
+            return ResponseEntity.ok()
+                    .eTag(ETags.of(user.getVersion()))
+                    .body(user);
+        };
     }
 
     @ApiResponses(value = {
@@ -240,7 +613,7 @@ public class UserController {
                     content = @Content),
             @ApiResponse(responseCode = "404", description = "User not found",
                     content = {@Content(
-                            schema = @Schema(implementation = CustomExceptionHandler.CustomError.class),
+                            schema = @Schema(implementation = CustomError.class),
                             examples = @ExampleObject(value = "{\n" +
                                     "    \"timestamp\": \"2023-12-13 00:59\",\n" +
                                     "    \"path\": \"/users/10\",\n" +
@@ -253,9 +626,118 @@ public class UserController {
     })
     @Operation(summary = "Delete user by id")
     @DeleteMapping("/{userId}")
-    public ResponseEntity<Void> deleteUserById(@PathVariable("userId") String userId) {
-        userService.deleteById(sanitizeId(userId));
+    public Callable<ResponseEntity<Void>> deleteUserById(@PathVariable("userId") String userId,
+                                                         @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+        var id = sanitizeId(userId, strictIds);
+        var expectedVersion = ETags.parseVersion(ifMatch);
+
+        return () -> {
+            userService.deleteById(id, expectedVersion);
+
+            return ResponseEntity.noContent().build();
+        };
+    }
+
+    private static void sendResync(SseEmitter emitter, CronosApiException ex) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name("resync")
+                    .data(CustomError.errorOf(ex), MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException | IllegalStateException sendFailure) {
+            emitter.completeWithError(sendFailure);
+        }
+    }
+
+    // Transfers of the whole table get their own timeout instead of the one for regular requests.
+    // The body is written straight to the response; the null entity tells Spring MVC it is complete.
+    private WebAsyncTask<ResponseEntity<Void>> export(HttpServletResponse response, String contentType,
+                                                      String fileName, ObjectWriter writer) {
+        return new WebAsyncTask<>(transferTimeout.toMillis(), () -> {
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.attachment().filename(fileName).build().toString());
+            writeAllUsers(writer, response.getOutputStream());
+            return null;
+        });
+    }
+
+    private WebAsyncTask<ResponseEntity<UserImportResponseDTO>> importUsers(Callable<SaveUserRequestReader> reader) {
+        return new WebAsyncTask<>(transferTimeout.toMillis(), () -> {
+            try (var requests = reader.call()) {
+                var summary = userBatchService.importAll(requests);
+                var allCreated = 0 == summary.getRejected() && 0 == summary.getFailed();
+                return ResponseEntity.status(allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(summary);
+            }
+        });
+    }
+
+    private ObjectWriter ndjsonWriter() {
+        return objectMapper.writerFor(UserResponseDTO.class).withRootValueSeparator("\n");
+    }
+
+    private void writeAllUsers(ObjectWriter writer, OutputStream outputStream) throws IOException {
+        try (var sequenceWriter = writer.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .writeValues(outputStream)) {
+            userService.streamAll(user -> {
+                try {
+                    sequenceWriter.write(user);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+    }
+
+    private List<Long> sanitizeIds(List<String> ids) {
+        if (ids.size() > maxLookupIds)
+            throw new CronosBadRequestException("Too many ids, the limit is " + maxLookupIds, 1007);
+
+        var userIds = new ArrayList<Long>(ids.size());
+        ids.forEach(id -> userIds.add(sanitizeId(id, strictIds)));
+        return userIds;
+    }
+
+    private static boolean exactMatch(String match) {
+        if ("exact".equalsIgnoreCase(match)) return true;
+        if ("prefix".equalsIgnoreCase(match)) return false;
+        throw new CronosBadRequestException("Invalid match, use 'prefix' or 'exact'.", 1010);
+    }
+
+    private int pageLimit(Integer limit) {
+        return null == limit ? defaultPageLimit : Math.min(Math.max(limit, 1), maxPageLimit);
+    }
+
+    // The representation the JSON and CBOR reads send, chosen here rather than by the message converters
+    // so that it can be part of the ETag. JSON wins ties and wildcards.
+    private static MediaType representation(String accept) {
+        if (null == accept || accept.isBlank()) return MediaType.APPLICATION_JSON;
+
+        List<MediaType> acceptable;
+        try {
+            acceptable = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException ex) {
+            return MediaType.APPLICATION_JSON;
+        }
+        MediaType.sortBySpecificityAndQuality(acceptable);
+        for (var mediaType : acceptable) {
+            if (0 == mediaType.getQualityValue()) continue;
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) return MediaType.APPLICATION_JSON;
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_CBOR)) return MediaType.APPLICATION_CBOR;
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+    }
+
+    private static ResponseEntity<List<UserResponseDTO>> pageResponse(List<UserResponseDTO> users, int pageLimit,
+                                                                      String eTag, MediaType mediaType) {
+        var response = ResponseEntity.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT).contentType(mediaType);
+        if (users.size() == pageLimit)
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(users.get(users.size() - 1).getId()));
 
-        return ResponseEntity.noContent().build();
+        return response.body(users);
     }
 }
@@ -7,13 +7,25 @@ import java.io.Serializable;
 @Getter
 public class CronosApiException extends RuntimeException  implements Serializable  {
 
+    // Lookup misses are a normal case, so stack traces are only captured when debugging
+    private static volatile boolean stackTraceEnabled = Boolean.getBoolean("cronos.exceptions.stack-trace");
+
     private final String description;
     private final long code;
 
     protected CronosApiException(String description, long code) {
-        if (null == description || description.isBlank()) description = "Internal Error, please contact the support";
+        super(normalize(description), null, false, stackTraceEnabled);
         if (code < 1000) code = -1;
-        this.description = description;
+        this.description = normalize(description);
         this.code = code;
     }
+
+    public static void setStackTraceEnabled(boolean enabled) {
+        stackTraceEnabled = enabled;
+    }
+
+    private static String normalize(String description) {
+        if (null == description || description.isBlank()) return "Internal Error, please contact the support";
+        return description;
+    }
 }
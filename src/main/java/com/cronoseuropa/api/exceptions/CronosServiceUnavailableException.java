@@ -0,0 +1,7 @@
+package com.cronoseuropa.api.exceptions;
+
+public class CronosServiceUnavailableException extends CronosApiException {
+    public CronosServiceUnavailableException(String description, long code) {
+        super(description, code);
+    }
+}
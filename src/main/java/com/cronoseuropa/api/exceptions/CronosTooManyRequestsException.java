@@ -0,0 +1,22 @@
+package com.cronoseuropa.api.exceptions;
+
+import java.time.Duration;
+
+public class CronosTooManyRequestsException extends CronosApiException {
+
+    // Sent as Retry-After when known
+    private final Duration retryAfter;
+
+    public CronosTooManyRequestsException(String description, long code) {
+        this(description, code, null);
+    }
+
+    public CronosTooManyRequestsException(String description, long code, Duration retryAfter) {
+        super(description, code);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,48 @@
+package com.cronoseuropa.api.exceptions;
+
+import com.cronoseuropa.api.utils.MinuteClock;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Error body sent to clients for a CronosApiException
+@Getter
+@Setter
+public class CustomError {
+
+    // Error bodies are immutable and depend only on the exception, so one is built per internal code
+    private static final ConcurrentMap<Long, Map<String, String>> ERROR_BODIES = new ConcurrentHashMap<>();
+
+    private String timestamp;
+    private String path;
+    private Map<String, String> error;
+
+    public CustomError(String timestamp, String path, Map<String, String> error) {
+        this.timestamp = timestamp;
+        this.path = path;
+        this.error = error;
+    }
+
+    public static CustomError of(String path, CronosApiException ex) {
+        return new CustomError(MinuteClock.now(), path, errorOf(ex));
+    }
+
+    public static Map<String, String> errorOf(CronosApiException ex) {
+        var error = ERROR_BODIES.computeIfAbsent(ex.getCode(), code -> newError(ex));
+        // Codes are expected to have a single description; anything else is built but not cached
+        if (!error.get("description").equals(ex.getDescription())) return newError(ex);
+        return error;
+    }
+
+    private static Map<String, String> newError(CronosApiException ex) {
+        var error = new LinkedHashMap<String, String>(4);
+        error.put("description", ex.getDescription());
+        error.put("internalCode", String.valueOf(ex.getCode()));
+        return Collections.unmodifiableMap(error);
+    }
+}
@@ -0,0 +1,7 @@
+package com.cronoseuropa.api.exceptions;
+
+public class UserChangeFeedResyncException extends CronosApiException {
+    public UserChangeFeedResyncException() {
+        super("Changes after this cursor are no longer available, please resync", 2003);
+    }
+}
@@ -0,0 +1,7 @@
+package com.cronoseuropa.api.exceptions;
+
+public class UserVersionConflictException extends CronosApiException {
+    public UserVersionConflictException() {
+        super("The user was modified by another request", 2002);
+    }
+}
@@ -2,17 +2,34 @@ package com.cronoseuropa.api.models;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.time.LocalDate;
 
 @Entity(name = "_user")
+@Table(name = "_user", indexes = {
+        @Index(name = "idx_usr_name", columnList = "usr_name, usr_id"),
+        @Index(name = "idx_usr_surname", columnList = "usr_surname, usr_id"),
+        @Index(name = "idx_usr_birth_date", columnList = "usr_birth_date, usr_id")
+})
+// Second-level cache regions are sized in ehcache.xml. Entities are cached once their insert commits; the bulk
+// updates and deletes evict the region, so a cached entity never outlives a write to its row.
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = UserEntity.CACHE_REGION)
 @Setter @Getter
 public class UserEntity {
 
+    public static final int ID_ALLOCATION_SIZE = 50;
+    public static final String CACHE_REGION = "users";
+    public static final String QUERY_CACHE_REGION = "users-queries";
+
     @Id
     @Column(name = "usr_id")
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    // allocationSize > 1 selects Hibernate's pooled optimizer, so batched inserts don't fetch ids one by one
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "usr_seq")
+    @SequenceGenerator(name = "usr_seq", sequenceName = "usr_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     @Column(name = "usr_name")
     private String name;
@@ -20,6 +37,9 @@ public class UserEntity {
     private String surname;
     @Column(name = "usr_birth_date")
     private LocalDate birthDate;
+    @Version
+    @Column(name = "usr_version")
+    private Long version;
 
     public UserEntity() {
 
@@ -0,0 +1,34 @@
+package com.cronoseuropa.api.models.dtos;
+
+import com.cronoseuropa.api.exceptions.CronosApiException;
+import com.cronoseuropa.api.exceptions.CustomError;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResultDTO {
+
+    public enum Status {CREATED, REJECTED, FAILED}
+
+    private int index;
+    private Status status;
+    private UserResponseDTO user;
+    private Map<String, String> error;
+
+    public static BatchItemResultDTO created(int index, UserResponseDTO user) {
+        return new BatchItemResultDTO(index, Status.CREATED, user, null);
+    }
+
+    public static BatchItemResultDTO rejected(int index, CronosApiException ex) {
+        return new BatchItemResultDTO(index, Status.REJECTED, null, CustomError.errorOf(ex));
+    }
+
+    public static BatchItemResultDTO failed(int index, CronosApiException ex) {
+        return new BatchItemResultDTO(index, Status.FAILED, null, CustomError.errorOf(ex));
+    }
+}
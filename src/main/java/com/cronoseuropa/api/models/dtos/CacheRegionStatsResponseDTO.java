@@ -0,0 +1,15 @@
+package com.cronoseuropa.api.models.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CacheRegionStatsResponseDTO {
+
+    private String region;
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private long putCount;
+}
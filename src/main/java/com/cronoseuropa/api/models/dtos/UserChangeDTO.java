@@ -0,0 +1,20 @@
+package com.cronoseuropa.api.models.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Changes to one user may be delivered out of commit order; consumers keep the highest version they've seen
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserChangeDTO {
+
+    public enum Type {CREATED, UPDATED, DELETED}
+
+    private long sequence;
+    private Type type;
+    private Long userId;
+    private Long version;
+    private UserResponseDTO user;
+}
@@ -0,0 +1,15 @@
+package com.cronoseuropa.api.models.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// 'next' is the cursor to pass as 'after' on the following poll
+@Getter
+@AllArgsConstructor
+public class UserChangesResponseDTO {
+
+    private List<UserChangeDTO> changes;
+    private String next;
+}
@@ -0,0 +1,15 @@
+package com.cronoseuropa.api.models.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// Best match first. Truncated when the search ran out of its latency budget, so better matches may exist.
+@Getter
+@AllArgsConstructor
+public class UserFuzzySearchResponseDTO {
+
+    private List<UserResponseDTO> users;
+    private boolean truncated;
+}
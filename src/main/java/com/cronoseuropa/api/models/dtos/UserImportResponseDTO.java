@@ -0,0 +1,17 @@
+package com.cronoseuropa.api.models.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// Counts per status; only the first rejected or failed records are listed
+@Getter
+@AllArgsConstructor
+public class UserImportResponseDTO {
+
+    private long created;
+    private long rejected;
+    private long failed;
+    private List<BatchItemResultDTO> errors;
+}
@@ -0,0 +1,15 @@
+package com.cronoseuropa.api.models.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// One entry per requested id, in request order; null where the id has no user
+@Getter
+@AllArgsConstructor
+public class UserLookupResponseDTO {
+
+    private List<UserResponseDTO> users;
+    private List<Long> missing;
+}
@@ -2,6 +2,7 @@ package com.cronoseuropa.api.models.dtos;
 
 import com.cronoseuropa.api.models.UserEntity;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
@@ -13,14 +14,20 @@ import java.time.LocalDate;
 @AllArgsConstructor
 public class UserResponseDTO {
 
+    @JsonIgnore
+    private Long id;
     private String name;
     private String surname;
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
     private LocalDate birthDate;
+    @JsonIgnore
+    private Long version;
 
     public UserResponseDTO(UserEntity userEntity) {
+        this.id = userEntity.getId();
         this.name = userEntity.getName();
         this.surname = userEntity.getSurname();
         this.birthDate = userEntity.getBirthDate();
+        this.version = userEntity.getVersion();
     }
 }
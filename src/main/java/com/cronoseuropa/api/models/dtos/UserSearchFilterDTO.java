@@ -0,0 +1,18 @@
+package com.cronoseuropa.api.models.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+@Getter
+@AllArgsConstructor
+public class UserSearchFilterDTO {
+
+    private String name;
+    private String surname;
+    // Exact match on name/surname instead of prefix match
+    private boolean exact;
+    private LocalDate birthDateFrom;
+    private LocalDate birthDateTo;
+}
@@ -0,0 +1,24 @@
+package com.cronoseuropa.api.models.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// Birth months ("yyyy-MM", or "unknown") where the in-memory counts differ from a GROUP BY over the table
+@Getter
+@AllArgsConstructor
+public class UserStatsCheckResponseDTO {
+
+    private boolean consistent;
+    private List<Mismatch> mismatches;
+
+    @Getter
+    @AllArgsConstructor
+    public static class Mismatch {
+
+        private String month;
+        private long memory;
+        private long database;
+    }
+}
@@ -0,0 +1,22 @@
+package com.cronoseuropa.api.models.dtos;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+// Histograms are keyed "yyyy" and "yyyy-MM" in date order, without empty entries. Ages are as of asOf.
+@Getter
+@AllArgsConstructor
+public class UserStatsResponseDTO {
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private LocalDate asOf;
+    private long total;
+    private long unknownBirthDate;
+    private Map<String, Long> years;
+    private Map<String, Long> months;
+    private Map<String, Long> ages;
+}
@@ -1,9 +1,81 @@
 package com.cronoseuropa.api.repositories;
 
 import com.cronoseuropa.api.models.UserEntity;
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
-public interface UserRepository extends JpaRepository<UserEntity, Long> {
+public interface UserRepository extends JpaRepository<UserEntity, Long>, UserRepositoryCustom {
+
+    String STREAM_FETCH_SIZE = "500";
+
+    // Read paths project straight into DTOs, so no managed entity is hydrated or snapshotted for dirty-checking
+    String SELECT_USER_RESPONSE = "select new com.cronoseuropa.api.models.dtos.UserResponseDTO("
+            + "u.id, u.name, u.surname, u.birthDate, u.version) from _user u ";
+
+    @Transactional(readOnly = true)
+    @Query(SELECT_USER_RESPONSE + "where u.id = :id")
+    Optional<UserResponseDTO> findResponseById(@Param("id") Long id);
+
+    @Transactional(readOnly = true)
+    @Query(SELECT_USER_RESPONSE + "where u.id in :ids")
+    List<UserResponseDTO> findAllResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Keyset pagination: seeks past the last seen id instead of using OFFSET.
+    // Listing and search results are query-cached. Hibernate invalidates them on every write it makes
+    // to _user; the write-behind JDBC inserts evict them explicitly.
+    @Transactional(readOnly = true)
+    @QueryHints(value = {
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = UserEntity.QUERY_CACHE_REGION)})
+    @Query(SELECT_USER_RESPONSE + "where u.id > :after order by u.id")
+    List<UserResponseDTO> findResponsePage(@Param("after") Long after, Pageable pageable);
+
+    // Must be consumed inside a transaction and closed after use
+    @QueryHints(value = @QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(SELECT_USER_RESPONSE + "order by u.id")
+    Stream<UserResponseDTO> streamAllResponses();
+
+    @Transactional(readOnly = true)
+    @Query("select coalesce(max(u.id), 0) from _user u")
+    long findMaxId();
+
+    // One slice of a parallel table scan; must be consumed inside a transaction and closed after use
+    @QueryHints(value = @QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(SELECT_USER_RESPONSE + "where u.id > :after and u.id <= :to")
+    Stream<UserResponseDTO> streamResponsesBetween(@Param("after") Long after, @Param("to") Long to);
+
+    // Users by birth year and month; users without a birth date are in the group of nulls
+    @Transactional(readOnly = true)
+    @Query("select year(u.birthDate), month(u.birthDate), count(u) from _user u "
+            + "group by year(u.birthDate), month(u.birthDate)")
+    List<Object[]> countByBirthMonth();
+
+    // Single DELETE, unlike deleteById which loads the entity first
+    @Transactional
+    @Modifying
+    @Query("delete from _user u where u.id = :id")
+    int deleteUserById(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("delete from _user u where u.id = :id and u.version = :version")
+    int deleteUserByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
 }
@@ -0,0 +1,16 @@
+package com.cronoseuropa.api.repositories;
+
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import com.cronoseuropa.api.models.dtos.UserSearchFilterDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface UserRepositoryCustom {
+
+    // Single UPDATE of the non-null fields; the version check is skipped when expectedVersion is null
+    int updateFields(Long id, String name, String surname, LocalDate birthDate, Long expectedVersion);
+
+    // Keyset-paginated search projected straight into DTOs
+    List<UserResponseDTO> search(UserSearchFilterDTO filter, Long after, int limit);
+}
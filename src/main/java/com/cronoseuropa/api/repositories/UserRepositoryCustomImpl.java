@@ -0,0 +1,83 @@
+package com.cronoseuropa.api.repositories;
+
+import com.cronoseuropa.api.models.UserEntity;
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import com.cronoseuropa.api.models.dtos.UserSearchFilterDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+
+@RequiredArgsConstructor
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int updateFields(Long id, String name, String surname, LocalDate birthDate, Long expectedVersion) {
+        var criteriaBuilder = entityManager.getCriteriaBuilder();
+        var update = criteriaBuilder.createCriteriaUpdate(UserEntity.class);
+        var user = update.from(UserEntity.class);
+
+        if (null != name) update.set(user.<String>get("name"), name);
+        if (null != surname) update.set(user.<String>get("surname"), surname);
+        if (null != birthDate) update.set(user.<LocalDate>get("birthDate"), birthDate);
+        update.set(user.<Long>get("version"), criteriaBuilder.sum(user.<Long>get("version"), 1L));
+
+        var where = criteriaBuilder.equal(user.get("id"), id);
+        if (null != expectedVersion)
+            where = criteriaBuilder.and(where, criteriaBuilder.equal(user.get("version"), expectedVersion));
+        update.where(where);
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @Override
+    public List<UserResponseDTO> search(UserSearchFilterDTO filter, Long after, int limit) {
+        var criteriaBuilder = entityManager.getCriteriaBuilder();
+        var query = criteriaBuilder.createQuery(UserResponseDTO.class);
+        var user = query.from(UserEntity.class);
+
+        var predicates = new ArrayList<Predicate>();
+        predicates.add(criteriaBuilder.greaterThan(user.<Long>get("id"), after));
+        if (null != filter.getName())
+            predicates.add(textMatch(criteriaBuilder, user.<String>get("name"), filter.getName(), filter.isExact()));
+        if (null != filter.getSurname())
+            predicates.add(textMatch(criteriaBuilder, user.<String>get("surname"), filter.getSurname(), filter.isExact()));
+        if (null != filter.getBirthDateFrom())
+            predicates.add(criteriaBuilder.greaterThanOrEqualTo(user.<LocalDate>get("birthDate"), filter.getBirthDateFrom()));
+        if (null != filter.getBirthDateTo())
+            predicates.add(criteriaBuilder.lessThanOrEqualTo(user.<LocalDate>get("birthDate"), filter.getBirthDateTo()));
+
+        query.select(criteriaBuilder.construct(UserResponseDTO.class, user.get("id"), user.get("name"),
+                        user.get("surname"), user.get("birthDate"), user.get("version")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(criteriaBuilder.asc(user.get("id")));
+
+        return entityManager.createQuery(query)
+                .setHint(HINT_CACHEABLE, true)
+                .setHint(HINT_CACHE_REGION, UserEntity.QUERY_CACHE_REGION)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    // Prefix matches stay index-friendly because the pattern only has a trailing wildcard
+    private static Predicate textMatch(CriteriaBuilder criteriaBuilder, Path<String> path, String value, boolean exact) {
+        if (exact) return criteriaBuilder.equal(path, value);
+
+        var escaped = value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return criteriaBuilder.like(path, escaped + "%", '\\');
+    }
+}
@@ -0,0 +1,106 @@
+package com.cronoseuropa.api.services;
+
+import com.cronoseuropa.api.exceptions.CronosApiException;
+import com.cronoseuropa.api.exceptions.CronosInternalErrorException;
+import com.cronoseuropa.api.models.UserEntity;
+import com.cronoseuropa.api.models.dtos.BatchItemResultDTO;
+import com.cronoseuropa.api.models.dtos.SaveUserRequestDTO;
+import com.cronoseuropa.api.models.dtos.UserImportResponseDTO;
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import com.cronoseuropa.api.repositories.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+@Service
+@RequiredArgsConstructor
+@Timed(value = "cronos.user.service", percentiles = {0.5, 0.95, 0.99}, histogram = true)
+public class UserBatchService {
+
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final UserChangePublisher userChangePublisher;
+
+    @Value("${cronos.users.batch.chunk-size:500}")
+    private int chunkSize;
+    @Value("${cronos.users.import.max-reported-errors:100}")
+    private int maxReportedErrors;
+
+    // Persists one transaction per chunk; results are reported per chunk, not in input order
+    public void createAll(Iterator<Supplier<SaveUserRequestDTO>> requests, Consumer<BatchItemResultDTO> results) {
+        createAll(requests, results, true);
+    }
+
+    // Keeps only counts and the first errors, and doesn't fill the user cache with the imported users
+    public UserImportResponseDTO importAll(Iterator<Supplier<SaveUserRequestDTO>> requests) {
+        var counts = new long[BatchItemResultDTO.Status.values().length];
+        var errors = new ArrayList<BatchItemResultDTO>();
+
+        createAll(requests, result -> {
+            counts[result.getStatus().ordinal()]++;
+            if (result.getStatus() != BatchItemResultDTO.Status.CREATED && errors.size() < maxReportedErrors)
+                errors.add(result);
+        }, false);
+
+        errors.sort(Comparator.comparingInt(BatchItemResultDTO::getIndex));
+        return new UserImportResponseDTO(counts[BatchItemResultDTO.Status.CREATED.ordinal()],
+                counts[BatchItemResultDTO.Status.REJECTED.ordinal()],
+                counts[BatchItemResultDTO.Status.FAILED.ordinal()], errors);
+    }
+
+    private void createAll(Iterator<Supplier<SaveUserRequestDTO>> requests, Consumer<BatchItemResultDTO> results,
+                           boolean cacheCreated) {
+        var chunk = new ArrayList<UserEntity>(chunkSize);
+        var chunkIndexes = new ArrayList<Integer>(chunkSize);
+
+        for (int index = 0; requests.hasNext(); index++) {
+            var request = requests.next();
+            try {
+                chunk.add(request.get().toEntity());
+                chunkIndexes.add(index);
+            } catch (CronosApiException ex) {
+                results.accept(BatchItemResultDTO.rejected(index, ex));
+            }
+
+            if (chunk.size() == chunkSize) {
+                persist(chunk, chunkIndexes, results, cacheCreated);
+                chunk.clear();
+                chunkIndexes.clear();
+            }
+        }
+
+        if (!chunk.isEmpty()) persist(chunk, chunkIndexes, results, cacheCreated);
+    }
+
+    private void persist(List<UserEntity> chunk, List<Integer> chunkIndexes, Consumer<BatchItemResultDTO> results,
+                         boolean cacheCreated) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                userRepository.saveAll(chunk);
+                entityManager.flush();
+                entityManager.clear();
+            });
+        } catch (RuntimeException ex) {
+            var error = new CronosInternalErrorException("Internal error", 5010);
+            chunkIndexes.forEach(index -> results.accept(BatchItemResultDTO.failed(index, error)));
+            return;
+        }
+
+        var createdUsers = new ArrayList<UserResponseDTO>(chunk.size());
+        for (var entity : chunk) createdUsers.add(new UserResponseDTO(entity));
+        userChangePublisher.created(createdUsers, cacheCreated);
+        for (int i = 0; i < createdUsers.size(); i++)
+            results.accept(BatchItemResultDTO.created(chunkIndexes.get(i), createdUsers.get(i)));
+    }
+}
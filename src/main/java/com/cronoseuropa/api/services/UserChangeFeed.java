@@ -0,0 +1,180 @@
+package com.cronoseuropa.api.services;
+
+import com.cronoseuropa.api.exceptions.CronosBadRequestException;
+import com.cronoseuropa.api.exceptions.UserChangeFeedResyncException;
+import com.cronoseuropa.api.models.dtos.UserChangeDTO;
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Bounded, sequence-numbered log of user changes. Writers append after commit; readers ask for the
+// changes after a cursor and must resync once those have been overwritten. Cursors look like
+// "<epoch>-<sequence>", so a cursor from a previous process lifetime also asks for a resync.
+@Slf4j
+@Component
+public class UserChangeFeed {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicReferenceArray<UserChangeDTO> ring;
+    private final int mask;
+
+    private final Object lock = new Object();
+    private volatile long lastSequence;
+    private final Map<Runnable, Subscription> subscribers = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private Thread dispatcher;
+    private ExecutorService subscriberExecutor;
+
+    public UserChangeFeed(@Value("${cronos.users.changes.capacity:16384}") int capacity) {
+        var size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    // Appended after commit, see UserChangePublisher, so readers never see a change that was rolled back
+    public void append(UserChangeDTO.Type type, Long userId, Long version, UserResponseDTO user) {
+        synchronized (lock) {
+            var sequence = lastSequence + 1;
+            ring.set((int) (sequence & mask), new UserChangeDTO(sequence, type, userId, version, user));
+            lastSequence = sequence;
+            lock.notifyAll();
+        }
+    }
+
+    public String cursor(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    // No cursor means "from now on"
+    public long parseCursor(String cursor) {
+        if (null == cursor || cursor.isBlank()) return lastSequence;
+
+        var separator = cursor.lastIndexOf('-');
+        long sequence;
+        try {
+            sequence = Long.parseLong(cursor.substring(separator + 1).strip());
+        } catch (NumberFormatException ex) {
+            throw new CronosBadRequestException("Invalid change feed cursor.", 1008);
+        }
+        if (separator < 0 || sequence < 0) throw new CronosBadRequestException("Invalid change feed cursor.", 1008);
+        if (!epoch.equals(cursor.substring(0, separator).strip())) throw new UserChangeFeedResyncException();
+        return sequence;
+    }
+
+    // Lock-free: a slot overwritten while it is being read is detected by its sequence number
+    public List<UserChangeDTO> readAfter(long after, int max) {
+        var last = lastSequence;
+        if (after > last || after < last - ring.length()) throw new UserChangeFeedResyncException();
+
+        var end = Math.min(last, after + max);
+        var changes = new ArrayList<UserChangeDTO>((int) (end - after));
+        for (var sequence = after + 1; sequence <= end; sequence++) {
+            var change = ring.get((int) (sequence & mask));
+            if (null == change || change.getSequence() != sequence) throw new UserChangeFeedResyncException();
+            changes.add(change);
+        }
+        return changes;
+    }
+
+    // Subscribers are called whenever changes are appended, each on its own executor task and never twice at
+    // once, so a subscriber blocked on a slow client only holds back itself. They read from their own cursor,
+    // so a call that finds nothing new is harmless.
+    public void subscribe(Runnable subscriber) {
+        subscribers.put(subscriber, new Subscription(subscriber));
+    }
+
+    public void unsubscribe(Runnable subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    @PostConstruct
+    public void start() {
+        var threadFactory = new CustomizableThreadFactory("user-change-subscriber-");
+        threadFactory.setDaemon(true);
+        subscriberExecutor = Executors.newCachedThreadPool(threadFactory);
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "user-change-feed");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+        dispatcher.join();
+        subscriberExecutor.shutdownNow();
+    }
+
+    private void dispatchLoop() {
+        var dispatched = lastSequence;
+        while (running) {
+            synchronized (lock) {
+                while (running && lastSequence == dispatched) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                dispatched = lastSequence;
+            }
+
+            subscribers.values().forEach(Subscription::signal);
+        }
+    }
+
+    // Signals that arrive while the subscriber runs are folded into one more run
+    private final class Subscription implements Runnable {
+
+        private final Runnable subscriber;
+        private final AtomicInteger signals = new AtomicInteger();
+
+        private Subscription(Runnable subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        private void signal() {
+            if (0 != signals.getAndIncrement()) return;
+            try {
+                subscriberExecutor.execute(this);
+            } catch (RejectedExecutionException ex) {
+                // Shutting down
+            }
+        }
+
+        @Override
+        public void run() {
+            var missed = signals.get();
+            do {
+                if (this != subscribers.get(subscriber)) return;
+                try {
+                    subscriber.run();
+                } catch (RuntimeException ex) {
+                    log.warn("Dropping a change feed subscriber that failed", ex);
+                    subscribers.remove(subscriber, this);
+                    return;
+                }
+                missed = signals.addAndGet(-missed);
+            } while (0 != missed);
+        }
+    }
+}
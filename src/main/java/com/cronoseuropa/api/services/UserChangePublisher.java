@@ -0,0 +1,67 @@
+package com.cronoseuropa.api.services;
+
+import com.cronoseuropa.api.caches.UserBirthDateStats;
+import com.cronoseuropa.api.caches.UserResponseCache;
+import com.cronoseuropa.api.caches.UserTableVersion;
+import com.cronoseuropa.api.caches.UserTrigramIndex;
+import com.cronoseuropa.api.models.dtos.UserChangeDTO;
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import com.cronoseuropa.api.utils.Transactions;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Applies a committed change of the user table to everything derived from it, in one after-commit step, so
+// that a rollback leaves them all untouched. The table version is bumped after the cache and the indexes, so
+// a new tag is never served with their old contents, and the change feed comes last, so a client reacting to
+// a change reads it back everywhere.
+@Component
+@RequiredArgsConstructor
+public class UserChangePublisher {
+
+    private final UserResponseCache userCache;
+    private final UserTrigramIndex userTrigramIndex;
+    private final UserBirthDateStats userBirthDateStats;
+    private final UserTableVersion userTableVersion;
+    private final UserChangeFeed userChangeFeed;
+
+    public void created(UserResponseDTO user) {
+        created(List.of(user), true);
+    }
+
+    // Either way a negative entry cached for a new id is replaced
+    public void created(List<UserResponseDTO> users, boolean cacheUsers) {
+        Transactions.afterCommit(() -> {
+            for (var user : users) {
+                if (cacheUsers) userCache.put(user);
+                else userCache.invalidate(user.getId());
+                userTrigramIndex.put(user);
+                userBirthDateStats.put(user);
+            }
+            userTableVersion.increment();
+            for (var user : users)
+                userChangeFeed.append(UserChangeDTO.Type.CREATED, user.getId(), user.getVersion(), user);
+        });
+    }
+
+    public void updated(UserResponseDTO user, boolean namesChanged, boolean birthDateChanged) {
+        Transactions.afterCommit(() -> {
+            userCache.put(user);
+            if (namesChanged) userTrigramIndex.put(user);
+            if (birthDateChanged) userBirthDateStats.put(user);
+            userTableVersion.increment();
+            userChangeFeed.append(UserChangeDTO.Type.UPDATED, user.getId(), user.getVersion(), user);
+        });
+    }
+
+    public void deleted(Long userId) {
+        Transactions.afterCommit(() -> {
+            userCache.invalidate(userId);
+            userTrigramIndex.remove(userId);
+            userBirthDateStats.remove(userId);
+            userTableVersion.increment();
+            userChangeFeed.append(UserChangeDTO.Type.DELETED, userId, null, null);
+        });
+    }
+}
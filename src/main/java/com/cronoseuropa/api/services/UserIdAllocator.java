@@ -0,0 +1,42 @@
+package com.cronoseuropa.api.services;
+
+import com.cronoseuropa.api.models.UserEntity;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+// Hands out user ids for rows inserted outside of JPA, through the entity's own id generator. Sharing its
+// pooled optimizer keeps these ids apart from Hibernate's; a second optimizer over the same sequence would
+// hand out overlapping blocks while the first one starts up.
+@Component
+@RequiredArgsConstructor
+public class UserIdAllocator {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    // Resolved on first use, as the JPA bootstrap may still be running when this bean is created
+    private volatile SessionFactoryImplementor sessionFactory;
+    private volatile IdentifierGenerator idGenerator;
+
+    public long nextId() {
+        var generator = idGenerator();
+        // The optimizer only reaches the sequence once per block, through a connection the session opens lazily
+        try (var session = sessionFactory.openStatelessSession()) {
+            return ((Number) generator.generate((SharedSessionContractImplementor) session, null)).longValue();
+        }
+    }
+
+    private IdentifierGenerator idGenerator() {
+        var generator = idGenerator;
+        if (null == generator) {
+            sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+            generator = sessionFactory.getMetamodel().entityPersister(UserEntity.class).getIdentifierGenerator();
+            idGenerator = generator;
+        }
+        return generator;
+    }
+}
@@ -0,0 +1,105 @@
+package com.cronoseuropa.api.services;
+
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import com.cronoseuropa.api.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Loads users by id for the user cache. Concurrent lookups of one id already share a single future there, so
+// single-flight mode queries on the calling thread; in batch mode, lookups of different ids arriving within
+// the window share one IN query, sent from a small pool.
+@Component
+public class UserLoader {
+
+    public enum Mode {SINGLE_FLIGHT, BATCH}
+
+    private final UserRepository userRepository;
+    private final Mode mode;
+    private final Duration batchWindow;
+    private final int maxBatchSize;
+    private final ScheduledThreadPoolExecutor executor;
+
+    private final Object lock = new Object();
+    private Map<Long, CompletableFuture<Optional<UserResponseDTO>>> pending = new HashMap<>();
+
+    public UserLoader(UserRepository userRepository,
+                      @Value("${cronos.users.lookup.coalescing:single-flight}") Mode mode,
+                      @Value("${cronos.users.lookup.threads:10}") int threads,
+                      @Value("${cronos.users.lookup.batch-window:2ms}") Duration batchWindow,
+                      @Value("${cronos.users.lookup.max-batch-size:100}") int maxBatchSize) {
+        this.userRepository = userRepository;
+        this.mode = mode;
+        this.batchWindow = batchWindow;
+        this.maxBatchSize = maxBatchSize;
+
+        if (mode == Mode.BATCH) {
+            var threadFactory = new CustomizableThreadFactory("user-loader-");
+            threadFactory.setDaemon(true);
+            this.executor = new ScheduledThreadPoolExecutor(threads, threadFactory);
+        } else {
+            this.executor = null;
+        }
+    }
+
+    public CompletableFuture<Optional<UserResponseDTO>> load(Long id) {
+        if (mode == Mode.SINGLE_FLIGHT) {
+            try {
+                return CompletableFuture.completedFuture(userRepository.findResponseById(id));
+            } catch (RuntimeException ex) {
+                return CompletableFuture.failedFuture(ex);
+            }
+        }
+
+        CompletableFuture<Optional<UserResponseDTO>> future;
+        boolean opened;
+        boolean full;
+        synchronized (lock) {
+            future = pending.get(id);
+            if (null == future) {
+                future = new CompletableFuture<>();
+                pending.put(id, future);
+            }
+            opened = pending.size() == 1;
+            full = pending.size() >= maxBatchSize;
+        }
+
+        if (full) executor.execute(this::flush);
+        else if (opened) executor.schedule(this::flush, batchWindow.toNanos(), TimeUnit.NANOSECONDS);
+        return future;
+    }
+
+    // A flush scheduled for a batch that was already sent full just takes whatever has queued since
+    private void flush() {
+        Map<Long, CompletableFuture<Optional<UserResponseDTO>>> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) return;
+            batch = pending;
+            pending = new HashMap<>();
+        }
+
+        try {
+            var found = userRepository.findAllResponsesByIdIn(batch.keySet()).stream()
+                    .collect(Collectors.toMap(UserResponseDTO::getId, Function.identity()));
+            batch.forEach((id, future) -> future.complete(Optional.ofNullable(found.get(id))));
+        } catch (RuntimeException ex) {
+            batch.values().forEach(future -> future.completeExceptionally(ex));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (null != executor) executor.shutdown();
+    }
+}
@@ -1,62 +1,155 @@
 package com.cronoseuropa.api.services;
 
+import com.cronoseuropa.api.caches.UserResponseCache;
+import com.cronoseuropa.api.caches.UserTrigramIndex;
 import com.cronoseuropa.api.exceptions.CronosInternalErrorException;
+import com.cronoseuropa.api.exceptions.CronosServiceUnavailableException;
 import com.cronoseuropa.api.exceptions.UserNotFoundException;
-import com.cronoseuropa.api.models.UserEntity;
+import com.cronoseuropa.api.exceptions.UserVersionConflictException;
 import com.cronoseuropa.api.models.dtos.SaveUserRequestDTO;
+import com.cronoseuropa.api.models.dtos.UserFuzzySearchResponseDTO;
+import com.cronoseuropa.api.models.dtos.UserLookupResponseDTO;
 import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import com.cronoseuropa.api.models.dtos.UserSearchFilterDTO;
 import com.cronoseuropa.api.repositories.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-
-import java.util.Collection;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "cronos.user.service", percentiles = {0.5, 0.95, 0.99}, histogram = true)
 public class UserService {
 
     private final UserRepository userRepository;
+    private final UserResponseCache userCache;
+    private final UserWriteBehindQueue userWriteBehindQueue;
+    private final UserLoader userLoader;
+    private final UserChangePublisher userChangePublisher;
+    private final UserTrigramIndex userTrigramIndex;
+
+    @Value("${cronos.users.lookup.chunk-size:500}")
+    private int lookupChunkSize;
+    @Value("${cronos.users.fuzzy.min-similarity:0.5}")
+    private double fuzzyMinSimilarity;
+    @Value("${cronos.users.fuzzy.budget:50ms}")
+    private Duration fuzzyBudget;
 
     public UserResponseDTO create(SaveUserRequestDTO dto) {
+        if (userWriteBehindQueue.isEnabled()) return userWriteBehindQueue.enqueue(dto);
+
         try {
-            return new UserResponseDTO(userRepository.save(dto.toEntity()));
+            var createdUser = new UserResponseDTO(userRepository.save(dto.toEntity()));
+            userChangePublisher.created(createdUser);
+            return createdUser;
 
         } catch (RuntimeException ex) {
             throw new CronosInternalErrorException("Internal error", 5010);
         }
     }
 
-    public Collection<UserResponseDTO> findAll() {
-        var userEntities = userRepository.findAll();
+    public List<UserResponseDTO> findPage(Long after, int limit) {
+        return userRepository.findResponsePage(after, PageRequest.of(0, limit));
+    }
+
+    @Transactional(readOnly = true)
+    public List<UserResponseDTO> search(UserSearchFilterDTO filter, Long after, int limit) {
+        return userRepository.search(filter, after, limit);
+    }
 
-        return userEntities.stream()
-                .map(UserResponseDTO::new)
-                .collect(Collectors.toSet());
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<UserResponseDTO> consumer) {
+        try (var users = userRepository.streamAllResponses()) {
+            users.forEach(consumer);
+        }
     }
 
     public UserResponseDTO findOneById(Long userId) {
-        var userEntity = userRepository.findById(userId);
+        return userCache.get(userId, userLoader::load);
+    }
+
+    // Cached users are served as is; the rest are read with one IN query per chunk
+    @Transactional(readOnly = true)
+    public UserLookupResponseDTO findAllByIds(List<Long> userIds) {
+        var distinctIds = new LinkedHashSet<>(userIds);
+        var found = new HashMap<Long, UserResponseDTO>();
+        var cached = userCache.getAllPresent(distinctIds);
+
+        var misses = new ArrayList<Long>();
+        for (var id : distinctIds) {
+            var hit = cached.get(id);
+            if (null == hit) misses.add(id);
+            else hit.ifPresent(user -> found.put(id, user));
+        }
+
+        for (int from = 0; from < misses.size(); from += lookupChunkSize) {
+            var chunk = misses.subList(from, Math.min(from + lookupChunkSize, misses.size()));
+            userRepository.findAllResponsesByIdIn(chunk).forEach(user -> found.put(user.getId(), user));
+        }
 
-        return new UserResponseDTO(userEntity
-                .orElseThrow(UserNotFoundException::new));
+        var users = new ArrayList<UserResponseDTO>(userIds.size());
+        userIds.forEach(id -> users.add(found.get(id)));
+        var missing = distinctIds.stream().filter(id -> !found.containsKey(id)).collect(Collectors.toList());
+        return new UserLookupResponseDTO(users, missing);
     }
 
-    public UserResponseDTO alterById(Long userId, SaveUserRequestDTO reqDto) {
+    // The budget bounds the index search; the matches are then read like a lookup by ids, mostly from the cache.
+    // Users deleted in between are dropped.
+    public UserFuzzySearchResponseDTO fuzzySearch(String query, int limit) {
+        if (!userTrigramIndex.isReady())
+            throw new CronosServiceUnavailableException("The search index is being built, please retry later", 5031);
+
+        var matches = userTrigramIndex.search(query, limit, fuzzyMinSimilarity, fuzzyBudget);
+        var userIds = LongStream.of(matches.getUserIds()).boxed().collect(Collectors.toList());
+        var users = findAllByIds(userIds).getUsers().stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new UserFuzzySearchResponseDTO(users, matches.isTruncated());
+    }
 
-        var entity = userRepository.findById(userId)
-                .orElseThrow(UserNotFoundException::new);
+    @Transactional
+    public UserResponseDTO alterById(Long userId, SaveUserRequestDTO reqDto, Long expectedVersion) {
+
+        if (null == reqDto.getName() && null == reqDto.getSurname() && null == reqDto.getBirthDate()) {
+            var user = findOneById(userId);
+            if (null != expectedVersion && !expectedVersion.equals(user.getVersion()))
+                throw new UserVersionConflictException();
+            return user;
+        }
 
-        if (null != reqDto.getName()) entity.setName(reqDto.getName());
-        if (null != reqDto.getSurname()) entity.setSurname(reqDto.getSurname());
-        if (null != reqDto.getBirthDate()) entity.setBirthDate(reqDto.getBirthDate());
+        var updated = userRepository.updateFields(userId, reqDto.getName(), reqDto.getSurname(),
+                reqDto.getBirthDate(), expectedVersion);
 
-        userRepository.save(entity);
+        if (0 == updated) {
+            if (null != expectedVersion && userRepository.existsById(userId))
+                throw new UserVersionConflictException();
+            throw new UserNotFoundException();
+        }
 
-        return new UserResponseDTO(entity);
+        // The response carries every column, so the untouched ones are read back in the same transaction
+        var alteredUser = userRepository.findResponseById(userId)
+                .orElseThrow(UserNotFoundException::new);
+        userChangePublisher.updated(alteredUser, null != reqDto.getName() || null != reqDto.getSurname(),
+                null != reqDto.getBirthDate());
+        return alteredUser;
     }
 
-    public UserResponseDTO alterFieldsById(Long userId, String name, String surname, String birthDate) {
+    @Transactional
+    public UserResponseDTO alterFieldsById(Long userId, String name, String surname, String birthDate,
+                                           Long expectedVersion) {
 
         var dto = new SaveUserRequestDTO();
 
@@ -65,13 +158,19 @@ public class UserService {
         if (null != birthDate) dto.setBirthDate(birthDate);
 
 
-        return alterById(userId, dto);
+        return alterById(userId, dto, expectedVersion);
     }
 
-    public void deleteById(Long userId) {
-        UserEntity userEntity = userRepository
-                .findById(userId)
-                .orElseThrow(UserNotFoundException::new);
-        userRepository.delete(userEntity);
+    public void deleteById(Long userId, Long expectedVersion) {
+        var deleted = null == expectedVersion
+                ? userRepository.deleteUserById(userId)
+                : userRepository.deleteUserByIdAndVersion(userId, expectedVersion);
+
+        if (0 == deleted) {
+            if (null != expectedVersion && userRepository.existsById(userId))
+                throw new UserVersionConflictException();
+            throw new UserNotFoundException();
+        }
+        userChangePublisher.deleted(userId);
     }
 }
@@ -0,0 +1,78 @@
+package com.cronoseuropa.api.services;
+
+import com.cronoseuropa.api.caches.UserBirthDateStats;
+import com.cronoseuropa.api.exceptions.CronosServiceUnavailableException;
+import com.cronoseuropa.api.models.dtos.UserStatsCheckResponseDTO;
+import com.cronoseuropa.api.models.dtos.UserStatsResponseDTO;
+import com.cronoseuropa.api.repositories.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+@Service
+@RequiredArgsConstructor
+@Timed(value = "cronos.user.service", percentiles = {0.5, 0.95, 0.99}, histogram = true)
+public class UserStatsService {
+
+    public static final String UNKNOWN_BIRTH_MONTH = "unknown";
+
+    private final UserBirthDateStats userBirthDateStats;
+    private final UserRepository userRepository;
+
+    @Value("${cronos.users.stats.age-buckets:0,18,25,35,45,55,65}")
+    private int[] ageBuckets;
+
+    // Ages as of the given day, which is part of the response's ETag
+    public UserStatsResponseDTO stats(LocalDate today) {
+        requireReady();
+        return userBirthDateStats.snapshot(today, ageBuckets);
+    }
+
+    // Compares the in-memory counts with a GROUP BY over the table, month by month. Writes committed between
+    // the query and the snapshot show up as differences, so a mismatch should be confirmed by a second check.
+    public UserStatsCheckResponseDTO check() {
+        requireReady();
+
+        var database = new TreeMap<String, Long>();
+        for (var row : userRepository.countByBirthMonth()) {
+            var month = birthMonth((Number) row[0], (Number) row[1]);
+            database.merge(month, ((Number) row[2]).longValue(), Long::sum);
+        }
+
+        var snapshot = userBirthDateStats.snapshot(LocalDate.now(), new int[0]);
+        var memory = new TreeMap<>(snapshot.getMonths());
+        if (snapshot.getUnknownBirthDate() > 0) memory.put(UNKNOWN_BIRTH_MONTH, snapshot.getUnknownBirthDate());
+
+        var months = new TreeSet<>(database.keySet());
+        months.addAll(memory.keySet());
+        var mismatches = new ArrayList<UserStatsCheckResponseDTO.Mismatch>();
+        for (var month : months) {
+            long inMemory = memory.getOrDefault(month, 0L);
+            long inDatabase = database.getOrDefault(month, 0L);
+            if (inMemory != inDatabase)
+                mismatches.add(new UserStatsCheckResponseDTO.Mismatch(month, inMemory, inDatabase));
+        }
+        return new UserStatsCheckResponseDTO(mismatches.isEmpty(), mismatches);
+    }
+
+    // Dates the in-memory counters don't cover are unknown there as well
+    private static String birthMonth(Number year, Number month) {
+        if (null == year || year.intValue() < UserBirthDateStats.FIRST_SUPPORTED_YEAR
+                || year.intValue() > UserBirthDateStats.LAST_SUPPORTED_YEAR)
+            return UNKNOWN_BIRTH_MONTH;
+        return YearMonth.of(year.intValue(), month.intValue()).toString();
+    }
+
+    private void requireReady() {
+        if (!userBirthDateStats.isReady())
+            throw new CronosServiceUnavailableException("The user statistics are being built, please retry later",
+                    5032);
+    }
+}
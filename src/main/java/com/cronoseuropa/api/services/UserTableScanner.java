@@ -0,0 +1,80 @@
+package com.cronoseuropa.api.services;
+
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import com.cronoseuropa.api.repositories.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+// Reads the whole user table once, split into id ranges streamed in parallel, each in its own read-only
+// transaction. Users are handed over in batches from the scanning threads, so consumers must be thread-safe.
+@Component
+@RequiredArgsConstructor
+public class UserTableScanner {
+
+    private final UserRepository userRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${cronos.users.scan.threads:0}")
+    private int threads;
+    @Value("${cronos.users.scan.batch-size:1000}")
+    private int batchSize;
+
+    public void scan(Consumer<List<UserResponseDTO>> consumer) {
+        var maxId = userRepository.findMaxId();
+        if (0 == maxId) return;
+
+        var slices = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        var sliceSize = Math.max(1, (maxId + slices - 1) / slices);
+        var executor = Executors.newFixedThreadPool(slices, runnable -> {
+            var thread = new Thread(runnable, "user-table-scan");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        var transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        try {
+            var scans = new ArrayList<Future<?>>(slices);
+            for (long after = 0; after < maxId; after += sliceSize) {
+                var from = after;
+                var to = Math.min(maxId, after + sliceSize);
+                scans.add(executor.submit(() -> transactionTemplate.executeWithoutResult(status ->
+                        scanSlice(from, to, consumer))));
+            }
+            for (var scan : scans) scan.get();
+
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("User table scan interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("User table scan failed", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void scanSlice(long after, long to, Consumer<List<UserResponseDTO>> consumer) {
+        try (var users = userRepository.streamResponsesBetween(after, to)) {
+            var iterator = users.iterator();
+            var batch = new ArrayList<UserResponseDTO>(batchSize);
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == batchSize) {
+                    consumer.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) consumer.accept(batch);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.cronoseuropa.api.services;
+
+import com.cronoseuropa.api.caches.UserResponseCache;
+import com.cronoseuropa.api.exceptions.CronosTooManyRequestsException;
+import com.cronoseuropa.api.models.dtos.SaveUserRequestDTO;
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Opt-in write-behind for user creation. Requests get an id right away and are inserted
+// by a background flusher in batched transactions. A batch that keeps failing is retried row by row,
+// and the rows that still fail are appended to a dead-letter file that POST /users/import accepts.
+@Slf4j
+@Component
+public class UserWriteBehindQueue {
+
+    private static final String INSERT_SQL = "insert into _user "
+            + "(usr_id, usr_name, usr_surname, usr_birth_date, usr_version) values (?, ?, ?, ?, 0)";
+
+    public enum Backpressure {REJECT, BLOCK}
+
+    private final UserIdAllocator userIdAllocator;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UserResponseCache userCache;
+    private final UserChangePublisher userChangePublisher;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectMapper objectMapper;
+    private final Counter failedWrites;
+
+    private final boolean enabled;
+    private final BlockingQueue<UserResponseDTO> queue;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Backpressure backpressure;
+    private final Duration blockTimeout;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Path deadLetterFile;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public UserWriteBehindQueue(UserIdAllocator userIdAllocator,
+                                JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                UserResponseCache userCache,
+                                UserChangePublisher userChangePublisher,
+                                EntityManagerFactory entityManagerFactory,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${cronos.users.write-behind.enabled:false}") boolean enabled,
+                                @Value("${cronos.users.write-behind.capacity:10000}") int capacity,
+                                @Value("${cronos.users.write-behind.batch-size:500}") int batchSize,
+                                @Value("${cronos.users.write-behind.flush-interval:50ms}") Duration flushInterval,
+                                @Value("${cronos.users.write-behind.backpressure:reject}") Backpressure backpressure,
+                                @Value("${cronos.users.write-behind.block-timeout:1s}") Duration blockTimeout,
+                                @Value("${cronos.users.write-behind.max-attempts:3}") int maxAttempts,
+                                @Value("${cronos.users.write-behind.retry-backoff:100ms}") Duration retryBackoff,
+                                @Value("${cronos.users.write-behind.dead-letter-file:write-behind-dead-letter.ndjson}") Path deadLetterFile) {
+        this.userIdAllocator = userIdAllocator;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.userCache = userCache;
+        this.userChangePublisher = userChangePublisher;
+        this.entityManagerFactory = entityManagerFactory;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.backpressure = backpressure;
+        this.blockTimeout = blockTimeout;
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.retryBackoff = retryBackoff;
+        this.deadLetterFile = deadLetterFile;
+
+        this.failedWrites = Counter.builder("cronos.users.write_behind.failed")
+                .description("Users written to the dead-letter file because they could not be inserted")
+                .register(meterRegistry);
+        Gauge.builder("cronos.users.write_behind.pending", queue, BlockingQueue::size)
+                .description("Users accepted but not yet inserted")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public UserResponseDTO enqueue(SaveUserRequestDTO dto) {
+        var user = new UserResponseDTO(userIdAllocator.nextId(), dto.getName(), dto.getSurname(),
+                dto.getBirthDate(), 0L);
+
+        if (!offer(user))
+            throw new CronosTooManyRequestsException("Too many pending writes, please retry later", 3001);
+
+        // Lets the new user be read back before it is flushed
+        userCache.put(user);
+        return user;
+    }
+
+    private boolean offer(UserResponseDTO user) {
+        if (backpressure == Backpressure.REJECT) return queue.offer(user);
+        try {
+            return queue.offer(user, blockTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) return;
+        running = true;
+        flusher = new Thread(this::flushLoop, "user-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // Runs before the DataSource is closed, since this bean depends on it
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!enabled) return;
+        running = false;
+        flusher.join();
+    }
+
+    private void flushLoop() {
+        var batch = new ArrayList<UserResponseDTO>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+                if (null == first) continue;
+
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void flush(List<UserResponseDTO> batch) {
+        RuntimeException failure = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                insert(batch);
+                inserted(batch);
+                return;
+            } catch (RuntimeException ex) {
+                failure = ex;
+                log.warn("Write-behind insert of {} users failed, attempt {} of {}", batch.size(), attempt,
+                        maxAttempts, ex);
+                if (attempt < maxAttempts && !backOff(attempt)) break;
+            }
+        }
+
+        // One bad row fails its whole batch, so the rest are inserted on their own
+        var inserted = new ArrayList<UserResponseDTO>(batch.size());
+        var failed = new ArrayList<UserResponseDTO>();
+        for (var user : batch) {
+            try {
+                insert(List.of(user));
+                inserted.add(user);
+            } catch (RuntimeException ex) {
+                failure = ex;
+                failed.add(user);
+            }
+        }
+        if (!inserted.isEmpty()) inserted(inserted);
+        if (!failed.isEmpty()) deadLetter(failed, failure);
+    }
+
+    private void insert(List<UserResponseDTO> users) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_SQL, users, users.size(), (statement, user) -> {
+                    statement.setLong(1, user.getId());
+                    statement.setString(2, user.getName());
+                    statement.setString(3, user.getSurname());
+                    statement.setObject(4, user.getBirthDate(), Types.DATE);
+                }));
+    }
+
+    private void inserted(List<UserResponseDTO> users) {
+        // Hibernate doesn't see these inserts, so listings it cached before them must be dropped
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        // Invalidated rather than cached: the entries put by enqueue may have been evicted, and a read in
+        // between may have cached a miss
+        userChangePublisher.created(users, false);
+    }
+
+    // Returns false when interrupted, so that a stopping flusher doesn't wait out the backoff
+    private boolean backOff(int attempt) {
+        try {
+            Thread.sleep(retryBackoff.multipliedBy(1L << (attempt - 1)).toMillis());
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // These users were acknowledged, so they are kept where they can be imported again
+    private void deadLetter(List<UserResponseDTO> users, RuntimeException failure) {
+        failedWrites.increment(users.size());
+        users.forEach(user -> userCache.invalidate(user.getId()));
+        try (var writer = Files.newBufferedWriter(deadLetterFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (var user : users) {
+                writer.write(objectMapper.writeValueAsString(user));
+                writer.newLine();
+            }
+            log.error("Could not insert {} write-behind users, appended them to {}", users.size(),
+                    deadLetterFile.toAbsolutePath(), failure);
+        } catch (IOException ex) {
+            failure.addSuppressed(ex);
+            users.forEach(user -> log.error("Lost write-behind user {}: {} {}, born {}", user.getId(),
+                    user.getName(), user.getSurname(), user.getBirthDate()));
+            log.error("Could not insert {} write-behind users nor write them to {}", users.size(),
+                    deadLetterFile.toAbsolutePath(), failure);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.cronoseuropa.api.utils;
+
+import com.cronoseuropa.api.exceptions.CustomError;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+// Writes the same fields as the bean serializer would, in declaration order
+public class CustomErrorSerializer extends StdSerializer<CustomError> {
+
+    public CustomErrorSerializer() {
+        super(CustomError.class);
+    }
+
+    @Override
+    public void serialize(CustomError customError, JsonGenerator generator, SerializerProvider provider)
+            throws IOException {
+        generator.writeStartObject(customError);
+        generator.writeStringField("timestamp", customError.getTimestamp());
+        generator.writeStringField("path", customError.getPath());
+
+        var error = customError.getError();
+        if (null == error) {
+            generator.writeNullField("error");
+        } else {
+            generator.writeObjectFieldStart("error");
+            for (var entry : error.entrySet()) generator.writeStringField(entry.getKey(), entry.getValue());
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,56 @@
+package com.cronoseuropa.api.utils;
+
+import com.cronoseuropa.api.exceptions.CronosBadRequestException;
+import org.springframework.http.MediaType;
+
+// Strong ETags carrying the UserEntity version, e.g. "3". Representations other than JSON carry their
+// subtype as well, e.g. "3+cbor", as the same version has different bytes in each.
+public class ETags {
+
+    public static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    public static String of(Long version, MediaType mediaType) {
+        return forMediaType(of(version), mediaType);
+    }
+
+    public static String forMediaType(String eTag, MediaType mediaType) {
+        if (null == mediaType || MediaType.APPLICATION_JSON.isCompatibleWith(mediaType)) return eTag;
+        return eTag.substring(0, eTag.length() - 1) + "+" + mediaType.getSubtype() + "\"";
+    }
+
+    // Returns null when any version matches: no header or "*"
+    public static Long parseVersion(String ifMatch) {
+        if (null == ifMatch || ifMatch.isBlank()) return null;
+
+        var tag = ifMatch.strip();
+        if ("*".equals(tag)) return null;
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"')
+            throw new CronosBadRequestException("Invalid If-Match header.", 1005);
+
+        var value = tag.substring(1, tag.length() - 1);
+        var suffix = value.indexOf('+');
+        try {
+            return Long.parseLong(-1 == suffix ? value : value.substring(0, suffix));
+        } catch (NumberFormatException ex) {
+            throw new CronosBadRequestException("Invalid If-Match header.", 1005);
+        }
+    }
+
+    // Weak comparison, as If-None-Match requires
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        if (null == ifNoneMatch || ifNoneMatch.isBlank()) return false;
+
+        for (var candidate : ifNoneMatch.split(",")) {
+            var tag = candidate.strip();
+            if ("*".equals(tag)) return true;
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals(eTag)) return true;
+        }
+        return false;
+    }
+
+    private ETags() {
+    }
+}
@@ -0,0 +1,143 @@
+package com.cronoseuropa.api.utils;
+
+import java.util.Arrays;
+
+// Open-addressing map from positive long keys to ints, without boxing. Linear probing, with removals
+// shifting the following entries back so no tombstones are left. Not thread-safe.
+public class LongIntHashMap {
+
+    private static final long EMPTY = 0;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public LongIntHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(long key) {
+        return key > EMPTY && keys[slot(key)] == key;
+    }
+
+    public int get(long key, int missingValue) {
+        if (key <= EMPTY) return missingValue;
+        var slot = slot(key);
+        return keys[slot] == key ? values[slot] : missingValue;
+    }
+
+    // Returns the previous value, or missingValue when the key was absent
+    public int put(long key, int value, int missingValue) {
+        if (key <= EMPTY) throw new IllegalArgumentException("Keys must be positive: " + key);
+
+        var slot = slot(key);
+        if (keys[slot] == key) {
+            var previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeAt) rehash(keys.length << 1);
+        return missingValue;
+    }
+
+    // Adds to the key's value, an absent key counting as 0, and returns the sum
+    public int addTo(long key, int delta) {
+        if (key <= EMPTY) throw new IllegalArgumentException("Keys must be positive: " + key);
+
+        var slot = slot(key);
+        if (keys[slot] == key) return values[slot] += delta;
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size > resizeAt) rehash(keys.length << 1);
+        return delta;
+    }
+
+    public int remove(long key, int missingValue) {
+        if (key <= EMPTY) return missingValue;
+        var slot = slot(key);
+        if (keys[slot] != key) return missingValue;
+
+        var removed = values[slot];
+        // Moves back every entry of the probe run that could no longer be reached through the emptied slot
+        var gap = slot;
+        for (var next = (gap + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            var home = home(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        keys[gap] = EMPTY;
+        size--;
+        return removed;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    public void forEach(LongIntConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) consumer.accept(keys[slot], values[slot]);
+        }
+    }
+
+    public long estimatedBytes() {
+        return 12L * keys.length;
+    }
+
+    // Slot holding the key, or the empty slot where it would go
+    private int slot(long key) {
+        var slot = home(key);
+        while (keys[slot] != EMPTY && keys[slot] != key) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    // Murmur3's finalizer, as sequential ids would otherwise fill one run of slots
+    private int home(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+
+    private void rehash(int capacity) {
+        var oldKeys = keys;
+        var oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) continue;
+            var slot = slot(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        var capacity = (long) Math.ceil(Math.max(expectedSize, 4) / LOAD_FACTOR);
+        return (int) Math.min(1 << 30, Long.highestOneBit(capacity - 1) << 1);
+    }
+
+    @FunctionalInterface
+    public interface LongIntConsumer {
+        void accept(long key, int value);
+    }
+}
@@ -0,0 +1,39 @@
+package com.cronoseuropa.api.utils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+// Current time at minute resolution, formatted at most once per minute
+public class MinuteClock {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final long MILLIS_PER_MINUTE = 60_000;
+
+    private static volatile Minute current = new Minute(Long.MIN_VALUE, null);
+
+    public static String now() {
+        long minute = System.currentTimeMillis() / MILLIS_PER_MINUTE;
+        var cached = current;
+        if (cached.epochMinute != minute) {
+            var time = LocalDateTime.ofInstant(Instant.ofEpochMilli(minute * MILLIS_PER_MINUTE), ZoneId.systemDefault());
+            cached = new Minute(minute, time.format(FORMATTER));
+            current = cached;
+        }
+        return cached.formatted;
+    }
+
+    private static final class Minute {
+        private final long epochMinute;
+        private final String formatted;
+
+        private Minute(long epochMinute, String formatted) {
+            this.epochMinute = epochMinute;
+            this.formatted = formatted;
+        }
+    }
+
+    private MinuteClock() {
+    }
+}
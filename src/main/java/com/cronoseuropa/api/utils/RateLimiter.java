@@ -0,0 +1,48 @@
+package com.cronoseuropa.api.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Token bucket per key, implemented as GCRA: each key keeps only the time at which its bucket is
+// next full ("theoretical arrival time"), updated with a CAS. Keys idle for longer than the idle
+// timeout are evicted.
+public class RateLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+    private final Cache<String, AtomicLong> buckets;
+    private final LongSupplier nanoTime;
+
+    public RateLimiter(double permitsPerSecond, int burst, Duration idleTimeout, long maximumKeys) {
+        this(permitsPerSecond, burst, idleTimeout, maximumKeys, System::nanoTime);
+    }
+
+    // Takes the clock, for tests
+    RateLimiter(double permitsPerSecond, int burst, Duration idleTimeout, long maximumKeys, LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+        this.emissionIntervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.burstNanos = emissionIntervalNanos * burst;
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(idleTimeout)
+                .maximumSize(maximumKeys)
+                .build();
+    }
+
+    // Zero when a permit was taken, otherwise how long until one is available
+    public long tryAcquire(String key) {
+        var arrival = buckets.get(key, k -> new AtomicLong(nanoTime.getAsLong()));
+        while (true) {
+            var now = nanoTime.getAsLong();
+            var current = arrival.get();
+            var next = Math.max(current, now) + emissionIntervalNanos;
+
+            var wait = next - now - burstNanos;
+            if (wait > 0) return wait;
+            if (arrival.compareAndSet(current, next)) return 0;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.cronoseuropa.api.utils;
+
+import com.cronoseuropa.api.exceptions.CronosApiException;
+import com.cronoseuropa.api.exceptions.CronosBadRequestException;
+import com.cronoseuropa.api.models.dtos.SaveUserRequestDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.function.Supplier;
+
+// Reads user records one at a time. Each record is validated only when its supplier is called,
+// so one invalid record is reported on its own instead of failing the whole input.
+public class SaveUserRequestReader implements Iterator<Supplier<SaveUserRequestDTO>>, Closeable {
+
+    private final ObjectMapper objectMapper;
+    private final MappingIterator<JsonNode> records;
+
+    private SaveUserRequestReader(ObjectMapper objectMapper, MappingIterator<JsonNode> records) {
+        this.objectMapper = objectMapper;
+        this.records = records;
+    }
+
+    // Accepts both a JSON array and newline-delimited JSON objects
+    public static SaveUserRequestReader json(ObjectMapper objectMapper, InputStream in) throws IOException {
+        return new SaveUserRequestReader(objectMapper, objectMapper.readerFor(JsonNode.class).readValues(in));
+    }
+
+    // Expects a header line naming the columns
+    public static SaveUserRequestReader csv(ObjectMapper objectMapper, InputStream in) throws IOException {
+        return new SaveUserRequestReader(objectMapper, UserCsv.reader().readValues(in));
+    }
+
+    @Override
+    public boolean hasNext() {
+        return records.hasNext();
+    }
+
+    @Override
+    public Supplier<SaveUserRequestDTO> next() {
+        var record = records.next();
+        return () -> toSaveUserRequest(record);
+    }
+
+    @Override
+    public void close() throws IOException {
+        records.close();
+    }
+
+    private SaveUserRequestDTO toSaveUserRequest(JsonNode record) {
+        try {
+            var dto = objectMapper.treeToValue(record, SaveUserRequestDTO.class);
+            if (null != dto) return dto;
+        } catch (JsonProcessingException ex) {
+            for (Throwable cause = ex; null != cause; cause = cause.getCause())
+                if (cause instanceof CronosApiException) throw (CronosApiException) cause;
+        }
+        throw new CronosBadRequestException("Malformed user record.", 1004);
+    }
+}
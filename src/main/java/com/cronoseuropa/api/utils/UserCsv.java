@@ -0,0 +1,36 @@
+package com.cronoseuropa.api.utils;
+
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+// CSV with a header line and the same columns as the JSON representation of a user
+public final class UserCsv {
+
+    public static final String MEDIA_TYPE = "text/csv";
+
+    private static final CsvMapper MAPPER = CsvMapper.builder().addModule(new JavaTimeModule()).build();
+
+    private static final CsvSchema SCHEMA = CsvSchema.builder()
+            .addColumn("name")
+            .addColumn("surname")
+            .addColumn("birthDate")
+            .setUseHeader(true)
+            .build();
+
+    private UserCsv() {
+    }
+
+    public static ObjectWriter writer() {
+        return MAPPER.writerFor(UserResponseDTO.class).with(SCHEMA);
+    }
+
+    // Columns are taken from the header line, so their order doesn't matter
+    public static ObjectReader reader() {
+        return MAPPER.readerFor(JsonNode.class).with(CsvSchema.emptySchema().withHeader());
+    }
+}
@@ -0,0 +1,32 @@
+package com.cronoseuropa.api.utils;
+
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+
+// Writes the same fields as the annotated DTO, without reflective property access or a formatter
+// per birth date. Birth dates go through the DTO's own 'yyyy-MM-dd' pattern; LocalDate.toString writes
+// proleptic years, which differ from it before year 1.
+public class UserResponseDTOSerializer extends StdSerializer<UserResponseDTO> {
+
+    private static final DateTimeFormatter BIRTH_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    public UserResponseDTOSerializer() {
+        super(UserResponseDTO.class);
+    }
+
+    @Override
+    public void serialize(UserResponseDTO user, JsonGenerator generator, SerializerProvider provider)
+            throws IOException {
+        generator.writeStartObject(user);
+        generator.writeStringField("name", user.getName());
+        generator.writeStringField("surname", user.getSurname());
+        var birthDate = user.getBirthDate();
+        generator.writeStringField("birthDate", null == birthDate ? null : BIRTH_DATE_FORMAT.format(birthDate));
+        generator.writeEndObject();
+    }
+}
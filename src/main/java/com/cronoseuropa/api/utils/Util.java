@@ -1,10 +1,50 @@
 package com.cronoseuropa.api.utils;
 
+import com.cronoseuropa.api.exceptions.CronosBadRequestException;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
 public class Util {
 
     // As the name suggest... It can be used as a util class
-    public static Long sanitizeId(String id) {
-        return Long.parseLong(id.replaceAll("[^0-9]", ""));
+    public static long sanitizeId(String id) {
+        return sanitizeId(id, false);
+    }
+
+    // Single pass over the chars, without allocating. Lenient mode skips non-digits, strict mode rejects them.
+    public static long sanitizeId(String id, boolean strict) {
+        if (null == id) throw invalidId();
+
+        long value = 0;
+        boolean hasDigits = false;
+        for (int i = 0, length = id.length(); i < length; i++) {
+            char c = id.charAt(i);
+            if (c >= '0' && c <= '9') {
+                int digit = c - '0';
+                if (value > (Long.MAX_VALUE - digit) / 10) throw invalidId();
+                value = value * 10 + digit;
+                hasDigits = true;
+            } else if (strict) {
+                throw invalidId();
+            }
+        }
+
+        if (!hasDigits) throw invalidId();
+        return value;
+    }
+
+    public static LocalDate parseDate(String date) {
+        if (null == date) return null;
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException ex) {
+            throw new CronosBadRequestException("Invalid date format. Please use 'yyyy-MM-dd'", 1003);
+        }
+    }
+
+    private static CronosBadRequestException invalidId() {
+        return new CronosBadRequestException("Invalid id.", 1006);
     }
 
     private Util() {
@@ -0,0 +1,44 @@
+package com.cronoseuropa.api;
+
+import com.cronoseuropa.api.models.dtos.SaveUserRequestDTO;
+import com.cronoseuropa.api.services.UserService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The prod profile against its file database: db/schema.sql creates the schema and Hibernate validates it
+@SpringBootTest
+@ActiveProfiles("prod")
+class ApiApplicationProdProfileTest {
+
+    @TempDir
+    static Path dataDir;
+
+    @Autowired
+    private UserService userService;
+
+    @DynamicPropertySource
+    static void dataDir(DynamicPropertyRegistry registry) {
+        registry.add("cronos.data-dir", dataDir::toString);
+    }
+
+    @Test
+    public void testUsersAreStoredInTheFileDatabase() {
+        var dto = new SaveUserRequestDTO();
+        dto.setName("João");
+        dto.setSurname("Carreira");
+        dto.setBirthDate(LocalDate.of(1990, 1, 1));
+        var created = userService.create(dto);
+
+        assertEquals("Carreira", userService.findOneById(created.getId()).getSurname());
+    }
+}
@@ -0,0 +1,32 @@
+package com.cronoseuropa.api;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Boots the prod profile the way main does and fails when it exceeds the startup budget.
+// The budget is generous for shared CI machines; tighten it with -Dstartup.budget=PT5S.
+class ApiApplicationStartupTest {
+
+    private static final Duration BUDGET = Duration.parse(System.getProperty("startup.budget", "PT20S"));
+
+    @Test
+    public void testProdProfileStartsWithinBudget() {
+        var start = System.nanoTime();
+        try (var context = ApiApplication.application().run(
+                "--spring.profiles.active=prod",
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:startup")) {
+
+            var elapsed = Duration.ofNanos(System.nanoTime() - start);
+            assertTrue(elapsed.compareTo(BUDGET) <= 0, "Started in " + elapsed + ", budget is " + BUDGET);
+
+            var startup = (BufferingApplicationStartup) context.getApplicationStartup();
+            assertFalse(startup.getBufferedTimeline().getEvents().isEmpty());
+        }
+    }
+}
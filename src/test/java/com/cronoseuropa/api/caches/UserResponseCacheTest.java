@@ -0,0 +1,90 @@
+package com.cronoseuropa.api.caches;
+
+import com.cronoseuropa.api.exceptions.UserNotFoundException;
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserResponseCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void testReadsAreServedFromTheCache() {
+        var userCache = userCache(false);
+
+        assertEquals("Carreira", userCache.get(1L, this::load).getSurname());
+        assertEquals("Carreira", userCache.get(1L, this::load).getSurname());
+
+        assertEquals(1, loads.get());
+        var stats = userCache.stats();
+        assertEquals(1, stats.getSize());
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(0.5, stats.getHitRate());
+    }
+
+    @Test
+    public void testPutReplacesAndInvalidateDropsTheEntry() {
+        var userCache = userCache(false);
+        userCache.get(1L, this::load);
+
+        userCache.put(user(1, "Lemos"));
+        assertEquals("Lemos", userCache.get(1L, this::load).getSurname());
+        assertEquals(1, loads.get());
+
+        userCache.invalidate(1L);
+        assertTrue(userCache.getAllPresent(List.of(1L)).isEmpty());
+        assertEquals("Carreira", userCache.get(1L, this::load).getSurname());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testAbsentIdsAreCachedWhenNegativeCachingIsEnabled() {
+        var userCache = userCache(true);
+
+        assertThrows(UserNotFoundException.class, () -> userCache.get(2L, this::load));
+        assertThrows(UserNotFoundException.class, () -> userCache.get(2L, this::load));
+
+        assertEquals(1, loads.get());
+        assertEquals(Map.of(2L, Optional.empty()), userCache.getAllPresent(List.of(2L)));
+    }
+
+    @Test
+    public void testAbsentIdsAreQueriedAgainWhenNegativeCachingIsDisabled() {
+        var userCache = userCache(false);
+
+        assertThrows(UserNotFoundException.class, () -> userCache.get(2L, this::load));
+        assertThrows(UserNotFoundException.class, () -> userCache.get(2L, this::load));
+
+        assertEquals(2, loads.get());
+        assertTrue(userCache.getAllPresent(List.of(2L)).isEmpty());
+    }
+
+    // Only the user with id 1 exists
+    private CompletableFuture<Optional<UserResponseDTO>> load(Long id) {
+        loads.incrementAndGet();
+        return CompletableFuture.completedFuture(id == 1L ? Optional.of(user(id, "Carreira")) : Optional.empty());
+    }
+
+    private static UserResponseCache userCache(boolean negativeCachingEnabled) {
+        return new UserResponseCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1), negativeCachingEnabled,
+                Duration.ofMinutes(1));
+    }
+
+    private static UserResponseDTO user(long id, String surname) {
+        return new UserResponseDTO(id, "João", surname, LocalDate.of(1990, 1, 1), 0L);
+    }
+}
@@ -0,0 +1,95 @@
+package com.cronoseuropa.api.configs;
+
+import com.cronoseuropa.api.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The rate limit allows one read per client every 10 seconds, and the concurrency limit one repository call
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:admission",
+        "cronos.rate-limit.enabled=true",
+        "cronos.rate-limit.read.permits-per-second=0.1",
+        "cronos.rate-limit.read.burst=1",
+        "cronos.concurrency-limit.enabled=true",
+        "cronos.concurrency-limit.max-in-flight=1",
+        "cronos.warm-up.enabled=false",
+        "cronos.users.fuzzy.enabled=false",
+        "cronos.users.stats.enabled=false"
+})
+@AutoConfigureMockMvc
+class AdmissionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void testRateLimitedClientGetsRetryAfter() throws Exception {
+
+        // The async dispatch that completes the first request isn't counted against the client
+        var result = mockMvc.perform(get("/users", "rate-limited"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/users", "rate-limited"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.error.internalCode").value("3002"));
+
+        perform(get("/users", "other-client"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testRepositoryCallsAreShedWhileAStreamIsOpen() throws Exception {
+
+        var transaction = transactionManager.getTransaction(new DefaultTransactionDefinition());
+        try (var users = userRepository.streamAllResponses()) {
+            perform(get("/users/1", "shed"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.error.internalCode").value("5033"));
+        } finally {
+            transactionManager.rollback(transaction);
+        }
+
+        perform(get("/users/1", "after-shed"))
+                .andExpect(status().isNotFound());
+    }
+
+    private static MockHttpServletRequestBuilder get(String path, String apiKey) {
+        return MockMvcRequestBuilders.get(path)
+                .header("X-Api-Key", apiKey)
+                .accept(MediaType.APPLICATION_JSON);
+    }
+
+    private ResultActions perform(RequestBuilder requestBuilder) throws Exception {
+        var actions = mockMvc.perform(requestBuilder);
+        var result = actions.andReturn();
+        return result.getRequest().isAsyncStarted()
+                ? mockMvc.perform(asyncDispatch(result))
+                : actions;
+    }
+}
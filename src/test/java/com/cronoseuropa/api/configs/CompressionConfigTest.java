@@ -0,0 +1,54 @@
+package com.cronoseuropa.api.configs;
+
+import com.cronoseuropa.api.models.dtos.SaveUserRequestDTO;
+import com.cronoseuropa.api.services.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Listings carry a strong ETag and must still be gzipped once they pass server.compression.min-response-size
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:compression",
+        "cronos.users.fuzzy.enabled=false",
+        "cronos.users.stats.enabled=false"
+})
+class CompressionConfigTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserService userService;
+
+    @Test
+    public void testListingWithStrongETagIsCompressed() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            var dto = new SaveUserRequestDTO();
+            dto.setName("Maria");
+            dto.setSurname("Albuquerque " + i);
+            dto.setBirthDate(LocalDate.of(1990, 1, 1).plusDays(i));
+            userService.create(dto);
+        }
+
+        var response = HttpClient.newHttpClient().send(HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:" + port + "/users?limit=50"))
+                        .header("Accept", "application/json")
+                        .header("Accept-Encoding", "gzip")
+                        .build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("ETag").orElseThrow().startsWith("\""));
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+    }
+}
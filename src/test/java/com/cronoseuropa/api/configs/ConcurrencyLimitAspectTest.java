@@ -0,0 +1,56 @@
+package com.cronoseuropa.api.configs;
+
+import com.cronoseuropa.api.exceptions.CronosServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConcurrencyLimitAspectTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrencyLimitAspect aspect = new ConcurrencyLimitAspect(meterRegistry, 1);
+
+    @Test
+    public void testReleasesSlotWhenCallReturns() throws Throwable {
+        assertEquals(List.of(1L), aspect.limit(returning(List.of(1L))));
+        assertEquals(List.of(2L), aspect.limit(returning(List.of(2L))));
+    }
+
+    @Test
+    public void testReleasesSlotWhenCallFails() throws Throwable {
+        var joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.proceed()).thenThrow(new IllegalStateException("Connection refused"));
+
+        assertThrows(IllegalStateException.class, () -> aspect.limit(joinPoint));
+        assertEquals(List.of(1L), aspect.limit(returning(List.of(1L))));
+    }
+
+    @Test
+    public void testStreamHoldsSlotUntilClosed() throws Throwable {
+        var stream = (Stream<?>) aspect.limit(returning(Stream.of(1L, 2L)));
+
+        var ex = assertThrows(CronosServiceUnavailableException.class,
+                () -> aspect.limit(returning(List.of(3L))));
+        assertEquals(5033, ex.getCode());
+        assertEquals(1, meterRegistry.get("cronos.users.repository.shed").counter().count());
+
+        stream.close();
+        stream.close();
+        assertEquals(0, meterRegistry.get("cronos.users.repository.in_flight").gauge().value());
+        assertEquals(List.of(3L), aspect.limit(returning(List.of(3L))));
+    }
+
+    private static ProceedingJoinPoint returning(Object result) throws Throwable {
+        var joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.proceed()).thenReturn(result);
+        return joinPoint;
+    }
+}
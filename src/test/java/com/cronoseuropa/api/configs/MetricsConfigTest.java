@@ -0,0 +1,48 @@
+package com.cronoseuropa.api.configs;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The timers of the @Timed services, as Prometheus scrapes them. Tests only export metrics when asked to.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:metrics",
+        "cronos.users.fuzzy.enabled=false",
+        "cronos.users.stats.enabled=false"
+})
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+class MetricsConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testUserServiceTimersAreScraped() throws Exception {
+        var result = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/users")
+                        .content("{\"name\":\"João\",\"surname\":\"Carreira\",\"birthDate\":\"1990-01-01\"}")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("cronos_user_service_seconds_count{"
+                        + "class=\"com.cronoseuropa.api.services.UserService\",exception=\"none\",method=\"create\"")))
+                .andExpect(content().string(containsString("cronos_user_service_seconds_bucket{")));
+    }
+}
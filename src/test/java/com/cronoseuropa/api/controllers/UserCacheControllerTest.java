@@ -0,0 +1,147 @@
+package com.cronoseuropa.api.controllers;
+
+import com.cronoseuropa.api.caches.UserResponseCache;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The user cache as the endpoints keep it: every write replaces or drops the cached entry once it commits
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:usercache",
+        "cronos.users.fuzzy.enabled=false",
+        "cronos.users.stats.enabled=false",
+        "cronos.cache.users.negative.enabled=true"
+})
+@AutoConfigureMockMvc
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class UserCacheControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserResponseCache userCache;
+
+    @Test
+    @Order(0)
+    public void testAbsentUserIsCachedUntilCreated() throws Exception {
+
+        perform(MockMvcRequestBuilders
+                        .get("/users/1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.error.internalCode").value("2001"));
+        assertEquals(Map.of(1L, Optional.empty()), userCache.getAllPresent(List.of(1L)));
+
+        perform(MockMvcRequestBuilders
+                        .post("/users")
+                        .content("{\"name\":\"João\",\"surname\":\"Carreira\",\"birthDate\":\"1990-01-01\"}")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(1));
+        assertEquals("Carreira", cachedSurname(1L));
+    }
+
+    @Test
+    @Order(1)
+    public void testReadIsServedFromTheCache() throws Exception {
+        var hits = userCache.stats().getHitCount();
+
+        perform(MockMvcRequestBuilders
+                        .get("/users/1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.surname").value("Carreira"));
+
+        assertEquals(hits + 1, userCache.stats().getHitCount());
+    }
+
+    @Test
+    @Order(2)
+    public void testAlterUserReplacesTheCachedUser() throws Exception {
+
+        perform(MockMvcRequestBuilders
+                        .put("/users/1")
+                        .content("{\"surname\":\"Lemos\"}")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        assertEquals("Lemos", cachedSurname(1L));
+
+        perform(MockMvcRequestBuilders
+                        .patch("/users/1?surname=Sousa")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        assertEquals("Sousa", cachedSurname(1L));
+
+        perform(MockMvcRequestBuilders
+                        .get("/users/1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.surname").value("Sousa"));
+    }
+
+    @Test
+    @Order(3)
+    public void testDeleteUserDropsTheCachedUser() throws Exception {
+
+        perform(MockMvcRequestBuilders
+                        .delete("/users/1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNoContent());
+        assertTrue(userCache.getAllPresent(List.of(1L)).isEmpty());
+
+        perform(MockMvcRequestBuilders
+                        .get("/users/1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Order(4)
+    public void testUserCacheStats() throws Exception {
+        var stats = userCache.stats();
+
+        perform(MockMvcRequestBuilders
+                        .get("/caches/users")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.hitCount").value(stats.getHitCount()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.missCount").value(stats.getMissCount()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.size").exists())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.hitRate").exists())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.evictionCount").exists());
+    }
+
+    private String cachedSurname(Long id) {
+        return userCache.getAllPresent(List.of(id)).get(id).orElseThrow().getSurname();
+    }
+
+    // Handlers return Callables, so the result is only available after the async dispatch
+    private ResultActions perform(RequestBuilder requestBuilder) throws Exception {
+        var actions = mockMvc.perform(requestBuilder);
+        var result = actions.andReturn();
+        return result.getRequest().isAsyncStarted()
+                ? mockMvc.perform(asyncDispatch(result))
+                : actions;
+    }
+}
@@ -1,8 +1,11 @@
 package com.cronoseuropa.api.controllers;
 
+import com.cronoseuropa.api.caches.UserBirthDateStats;
+import com.cronoseuropa.api.caches.UserTrigramIndex;
 import com.cronoseuropa.api.models.dtos.SaveUserRequestDTO;
 import com.cronoseuropa.api.services.UserService;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.jayway.jsonpath.JsonPath;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.MethodOrderer;
@@ -14,12 +17,22 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.function.BooleanSupplier;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -29,6 +42,10 @@ class UserControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
+    @Autowired
+    private UserTrigramIndex userTrigramIndex;
+    @Autowired
+    private UserBirthDateStats userBirthDateStats;
 
     // Controller ✨HAPPY PATH✨ tests
 
@@ -40,7 +57,7 @@ class UserControllerTest {
         userToAdd.setName("João");
         userToAdd.setSurname("Carreira");
         userToAdd.setBirthDate(LocalDate.now().minusYears(30));
-        mockMvc.perform( MockMvcRequestBuilders
+        perform( MockMvcRequestBuilders
                         .post("/users")
                         .content(asJsonString(userToAdd))
                         .contentType(MediaType.APPLICATION_JSON)
@@ -53,7 +70,7 @@ class UserControllerTest {
     @Order(1)
     public void testFindAllUsers() throws Exception {
 
-        mockMvc.perform(MockMvcRequestBuilders
+        perform(MockMvcRequestBuilders
                         .get("/users")
                         .accept(MediaType.APPLICATION_JSON))
                 .andDo(print())
@@ -61,11 +78,90 @@ class UserControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.[*].surname").isNotEmpty());
     }
 
+    @Test
+    @Order(1)
+    public void testFindAllUsersPage() throws Exception {
+
+        perform(MockMvcRequestBuilders
+                        .get("/users?limit=1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(UserController.NEXT_CURSOR_HEADER, "1"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1));
+
+        perform(MockMvcRequestBuilders
+                        .get("/users?after=1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(UserController.NEXT_CURSOR_HEADER))
+                .andExpect(MockMvcResultMatchers.jsonPath("$").isEmpty());
+    }
+
+    @Test
+    @Order(1)
+    public void testStreamAllUsers() throws Exception {
+
+        var result = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/users/stream")
+                        .accept(UserController.NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"surname\":\"Carreira\"")));
+    }
+
+    @Test
+    @Order(1)
+    public void testSearchUsers() throws Exception {
+
+        perform(MockMvcRequestBuilders
+                        .get("/users/search?surname=Carr&birthDateTo=" + LocalDate.now())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].surname").value("Carreira"));
+
+        perform(MockMvcRequestBuilders
+                        .get("/users/search?surname=Carr&match=exact")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$").isEmpty());
+
+        perform(MockMvcRequestBuilders
+                        .get("/users/search?surname=Carr&match=exactly")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.error.internalCode").value("1010"));
+    }
+
+    @Test
+    @Order(1)
+    public void testFuzzySearchUsers() throws Exception {
+        awaitReady(userTrigramIndex::isReady);
+
+        perform(MockMvcRequestBuilders
+                        .get("/users/fuzzy?q=joao carrera")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.users[0].surname").value("Carreira"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.truncated").value(false));
+
+        perform(MockMvcRequestBuilders
+                        .get("/users/fuzzy?q=zzyzx")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.users").isEmpty());
+    }
+
     @Test
     @Order(2)
     public void testFindOneUserById() throws Exception {
 
-        mockMvc.perform(MockMvcRequestBuilders
+        perform(MockMvcRequestBuilders
                         .get("/users/1")
                         .accept(MediaType.APPLICATION_JSON))
                 .andDo(print())
@@ -74,11 +170,101 @@ class UserControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.surname").value("Carreira"));
     }
 
+    @Test
+    @Order(2)
+    public void testFindOneUserByIdNotModified() throws Exception {
+
+        var eTag = perform(MockMvcRequestBuilders
+                        .get("/users/1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        perform(MockMvcRequestBuilders
+                        .get("/users/1")
+                        .header("If-None-Match", eTag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @Order(2)
+    public void testFindAllUsersNotModified() throws Exception {
+
+        var eTag = perform(MockMvcRequestBuilders
+                        .get("/users")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        perform(MockMvcRequestBuilders
+                        .get("/users")
+                        .header("If-None-Match", eTag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("Vary", containsString("Accept")));
+
+        // The JSON tag doesn't validate the CBOR representation
+        perform(MockMvcRequestBuilders
+                        .get("/users")
+                        .header("If-None-Match", eTag)
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string("ETag", eTag.substring(0, eTag.length() - 1) + "+cbor\""));
+    }
+
+    @Test
+    @Order(2)
+    public void testFindOneUserByIdAsCbor() throws Exception {
+
+        perform(MockMvcRequestBuilders
+                        .get("/users/1")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string("ETag", containsString("+cbor\"")))
+                .andExpect(header().string("Vary", containsString("Accept")));
+    }
+
+    @Test
+    @Order(2)
+    public void testFindUsersByIds() throws Exception {
+
+        perform(MockMvcRequestBuilders
+                        .get("/users?ids=999,1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.users[0]").isEmpty())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.users[1].surname").value("Carreira"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.missing[0]").value(999));
+    }
+
+    @Test
+    @Order(2)
+    public void testFindOneUserByInvalidId() throws Exception {
+
+        perform(MockMvcRequestBuilders
+                        .get("/users/abc")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.error.internalCode").value("1006"));
+
+        perform(MockMvcRequestBuilders
+                        .get("/users/99999999999999999999")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.error.internalCode").value("1006"));
+    }
+
     @Test
     @Order(3)
     public void testAlterUserFieldsById() throws Exception {
 
-        mockMvc.perform(MockMvcRequestBuilders
+        perform(MockMvcRequestBuilders
                         .patch("/users/1?surname=de Carreira")
                         .accept(MediaType.APPLICATION_JSON))
                 .andDo(print())
@@ -88,6 +274,19 @@ class UserControllerTest {
     }
 
 
+    @Test
+    @Order(3)
+    public void testAlterUserFieldsByIdWithStaleVersion() throws Exception {
+
+        perform(MockMvcRequestBuilders
+                        .patch("/users/1?surname=Stale")
+                        .header("If-Match", "\"999\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.error.internalCode").value("2002"));
+    }
+
     @Test
     @Order(4)
     public void testAlterUser() throws Exception {
@@ -96,7 +295,7 @@ class UserControllerTest {
         user1.setSurname("to CronosEuropa");
         user1.setBirthDate("2023-12-18");
 
-        mockMvc.perform( MockMvcRequestBuilders
+        perform( MockMvcRequestBuilders
                         .put("/users/1")
                         .content(asJsonString(user1))
                         .contentType(MediaType.APPLICATION_JSON)
@@ -110,13 +309,161 @@ class UserControllerTest {
     @Order(5)
     public void testDeleteUserById() throws Exception {
 
-        mockMvc.perform( MockMvcRequestBuilders
+        perform( MockMvcRequestBuilders
                         .delete("/users/1")
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    @Order(6)
+    public void testCreateUsers() throws Exception {
+
+        perform(MockMvcRequestBuilders
+                        .post("/users/batch")
+                        .content("[{\"name\":\"Ana\",\"surname\":\"Lima\",\"birthDate\":\"1990-05-01\"}," +
+                                "{\"name\":\" \",\"surname\":\"Lima\"}," +
+                                "{\"name\":\"Rui\",\"surname\":\"Lima\",\"birthDate\":\"1991-06-02\"}]")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isMultiStatus())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value("CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status").value("REJECTED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].error.internalCode").value("1001"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[2].user.name").value("Rui"));
+    }
+
+    @Test
+    @Order(7)
+    public void testImportAndExportUsers() throws Exception {
+
+        perform(MockMvcRequestBuilders
+                        .post("/users/import")
+                        .content("surname,name,birthDate\nSousa,Eva,1988-02-03\nSousa,,1988-02-03\n")
+                        .contentType("text/csv")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isMultiStatus())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.created").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rejected").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errors[0].index").value(1));
+
+        perform(MockMvcRequestBuilders
+                        .get("/users/export")
+                        .accept("text/csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("name,surname,birthDate\n")))
+                .andExpect(content().string(containsString("Eva,Sousa,1988-02-03\n")));
+    }
+
+    @Test
+    @Order(8)
+    public void testPollChanges() throws Exception {
+
+        var cursor = JsonPath.read(perform(MockMvcRequestBuilders
+                        .get("/users/changes")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changes").isEmpty())
+                .andReturn().getResponse().getContentAsString(), "$.next");
+
+        perform(MockMvcRequestBuilders
+                        .patch("/users/2?surname=Lemos")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        perform(MockMvcRequestBuilders
+                        .get("/users/changes?after=" + cursor)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changes[0].type").value("UPDATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changes[0].user.surname").value("Lemos"));
+
+        perform(MockMvcRequestBuilders
+                        .get("/users/changes?after=stale-1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isGone())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.error.internalCode").value("2003"));
+    }
+
+    @Test
+    @Order(8)
+    public void testStreamChanges() throws Exception {
+
+        var cursor = JsonPath.read(perform(MockMvcRequestBuilders
+                        .get("/users/changes")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString(), "$.next");
+
+        perform(MockMvcRequestBuilders
+                        .patch("/users/2?surname=Pinto")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        // The stream stays open, so only the events sent so far are checked
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/users/changes?after=" + cursor)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andExpect(content().string(containsString("event:change\n")))
+                .andExpect(content().string(containsString("\"surname\":\"Pinto\"")));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/users/changes?after=stale-1")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andExpect(content().string(containsString("event:resync\n")))
+                .andExpect(content().string(containsString("\"internalCode\":\"2003\"")));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/users/changes?after=abc")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.error.internalCode").value("1008"));
+    }
+
+    @Test
+    @Order(9)
+    public void testUserStats() throws Exception {
+        awaitReady(userBirthDateStats::isReady);
+
+        perform(MockMvcRequestBuilders
+                        .get("/users/stats")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag",
+                        containsString(LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE))))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.total").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.years['1990']").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.months['1988-02']").value(1));
+
+        perform(MockMvcRequestBuilders
+                        .get("/users/stats/check")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.consistent").value(true));
+    }
+
+    // The indexes are built in the background once the application is ready
+    private static void awaitReady(BooleanSupplier ready) throws InterruptedException {
+        var deadline = System.nanoTime() + 10_000_000_000L;
+        while (!ready.getAsBoolean() && System.nanoTime() < deadline) Thread.sleep(10);
+        assertTrue(ready.getAsBoolean());
+    }
+
+    // Handlers return Callables, so the result is only available after the async dispatch
+    private ResultActions perform(RequestBuilder requestBuilder) throws Exception {
+        var actions = mockMvc.perform(requestBuilder);
+        var result = actions.andReturn();
+        return result.getRequest().isAsyncStarted()
+                ? mockMvc.perform(asyncDispatch(result))
+                : actions;
+    }
+
     public static String asJsonString(final Object obj) {
         try {
             var mapper = new ObjectMapper();
@@ -0,0 +1,52 @@
+package com.cronoseuropa.api.controllers;
+
+import com.cronoseuropa.api.exceptions.CronosTooManyRequestsException;
+import com.cronoseuropa.api.services.UserWriteBehindQueue;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A full write-behind queue, as the client sees it
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:writebehind",
+        "cronos.users.fuzzy.enabled=false",
+        "cronos.users.stats.enabled=false"
+})
+@AutoConfigureMockMvc
+class UserWriteBehindControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private UserWriteBehindQueue userWriteBehindQueue;
+
+    @Test
+    public void testCreateUserWhenQueueIsFull() throws Exception {
+        when(userWriteBehindQueue.isEnabled()).thenReturn(true);
+        when(userWriteBehindQueue.enqueue(any()))
+                .thenThrow(new CronosTooManyRequestsException("Too many pending writes, please retry later", 3001));
+
+        var result = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/users")
+                        .content("{\"name\":\"João\",\"surname\":\"Carreira\",\"birthDate\":\"1990-01-01\"}")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.error.internalCode").value("3001"));
+    }
+}
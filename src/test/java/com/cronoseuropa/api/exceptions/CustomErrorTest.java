@@ -0,0 +1,49 @@
+package com.cronoseuropa.api.exceptions;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomErrorTest {
+
+    @Test
+    public void testStackTraceIsSkippedByDefault() {
+        assertEquals(0, new UserNotFoundException().getStackTrace().length);
+    }
+
+    @Test
+    public void testStackTraceIsCapturedWhenEnabled() {
+        CronosApiException.setStackTraceEnabled(true);
+        try {
+            assertTrue(new UserNotFoundException().getStackTrace().length > 0);
+        } finally {
+            CronosApiException.setStackTraceEnabled(false);
+        }
+    }
+
+    @Test
+    public void testCachedErrorBodyCarriesThePathOfEachRequest() {
+        var first = CustomError.of("/users/1", new UserNotFoundException());
+        var second = CustomError.of("/users/2", new UserNotFoundException());
+
+        assertEquals("/users/1", first.getPath());
+        assertEquals("/users/2", second.getPath());
+        assertSame(first.getError(), second.getError());
+        assertEquals(Map.of("description", "The user was not found", "internalCode", "2001"), second.getError());
+    }
+
+    @Test
+    public void testOtherDescriptionsOfACachedCodeAreNotCached() {
+        var cached = CustomError.errorOf(new CronosBadRequestException("The name is required", 1999));
+        var other = CustomError.errorOf(new CronosBadRequestException("The surname is required", 1999));
+
+        assertEquals("The surname is required", other.get("description"));
+        assertNotSame(other, CustomError.errorOf(new CronosBadRequestException("The surname is required", 1999)));
+        assertSame(cached, CustomError.errorOf(new CronosBadRequestException("The name is required", 1999)));
+    }
+}
@@ -0,0 +1,70 @@
+package com.cronoseuropa.api.repositories;
+
+import com.cronoseuropa.api.models.UserEntity;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Hibernate's second-level cache: the users entity region and the users-queries region from ehcache.xml
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:secondlevelcache",
+        "cronos.users.fuzzy.enabled=false",
+        "cronos.users.stats.enabled=false"
+})
+class UserRepositoryCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void testCachesUsersUntilTheirRowIsWritten() {
+        var cache = entityManagerFactory.getCache();
+        var userId = userRepository.save(user("Carreira")).getId();
+        assertTrue(cache.contains(UserEntity.class, userId));
+
+        userRepository.updateFields(userId, "Joana", null, null, null);
+        assertFalse(cache.contains(UserEntity.class, userId));
+
+        assertEquals("Joana", userRepository.findById(userId).orElseThrow().getName());
+        assertTrue(cache.contains(UserEntity.class, userId));
+
+        userRepository.deleteUserById(userId);
+        assertFalse(cache.contains(UserEntity.class, userId));
+    }
+
+    @Test
+    public void testCachesListingsUntilTheTableIsWritten() {
+        var after = userRepository.save(user("Sousa")).getId() - 1;
+        userRepository.findResponsePage(after, PageRequest.of(0, 10));
+
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics()
+                .getQueryRegionStatistics(UserEntity.QUERY_CACHE_REGION);
+        var hits = statistics.getHitCount();
+        assertEquals(1, userRepository.findResponsePage(after, PageRequest.of(0, 10)).size());
+        assertEquals(hits + 1, statistics.getHitCount());
+
+        userRepository.save(user("Lemos"));
+        assertEquals(2, userRepository.findResponsePage(after, PageRequest.of(0, 10)).size());
+        assertEquals(hits + 1, statistics.getHitCount());
+    }
+
+    private static UserEntity user(String surname) {
+        var user = new UserEntity();
+        user.setName("João");
+        user.setSurname(surname);
+        user.setBirthDate(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
@@ -0,0 +1,106 @@
+package com.cronoseuropa.api.services;
+
+import com.cronoseuropa.api.caches.UserResponseCache;
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import com.cronoseuropa.api.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserLoaderTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private UserLoader userLoader;
+
+    @AfterEach
+    public void tearDown() {
+        userLoader.stop();
+    }
+
+    @Test
+    public void testConcurrentLookupsOfOneIdShareAQuery() throws Exception {
+        var queried = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(userRepository.findResponseById(1L)).thenAnswer(invocation -> {
+            queried.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(user(1));
+        });
+        userLoader = new UserLoader(userRepository, UserLoader.Mode.SINGLE_FLIGHT, 1, Duration.ZERO, 100);
+        var userCache = new UserResponseCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1), false,
+                Duration.ofSeconds(1));
+
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var lookups = new ArrayList<Future<UserResponseDTO>>();
+            for (int i = 0; i < 8; i++) lookups.add(executor.submit(() -> userCache.get(1L, userLoader::load)));
+            assertTrue(queried.await(5, TimeUnit.SECONDS));
+            // Lets the other lookups reach the cache while the first one is still querying
+            Thread.sleep(100);
+            release.countDown();
+
+            for (var lookup : lookups) assertEquals(1L, lookup.get(5, TimeUnit.SECONDS).getId());
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(userRepository, times(1)).findResponseById(any());
+    }
+
+    @Test
+    public void testLookupsWithinTheWindowShareAnInQuery() throws Exception {
+        when(userRepository.findAllResponsesByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().filter(id -> id != 3L).map(UserLoaderTest::user).collect(Collectors.toList());
+        });
+        userLoader = new UserLoader(userRepository, UserLoader.Mode.BATCH, 1, Duration.ofMillis(50), 100);
+
+        var first = userLoader.load(1L);
+        var second = userLoader.load(2L);
+        var missing = userLoader.load(3L);
+
+        assertEquals(1L, first.get(5, TimeUnit.SECONDS).orElseThrow().getId());
+        assertEquals(2L, second.get(5, TimeUnit.SECONDS).orElseThrow().getId());
+        assertTrue(missing.get(5, TimeUnit.SECONDS).isEmpty());
+        verify(userRepository, times(1)).findAllResponsesByIdIn(Set.of(1L, 2L, 3L));
+    }
+
+    @Test
+    public void testFullBatchIsSentWithoutWaitingForTheWindow() throws Exception {
+        when(userRepository.findAllResponsesByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(UserLoaderTest::user).collect(Collectors.toList());
+        });
+        userLoader = new UserLoader(userRepository, UserLoader.Mode.BATCH, 1, Duration.ofMinutes(1), 2);
+
+        var lookups = List.of(userLoader.load(1L), userLoader.load(2L));
+
+        for (var lookup : lookups) assertTrue(lookup.get(5, TimeUnit.SECONDS).isPresent());
+        verify(userRepository, times(1)).findAllResponsesByIdIn(Set.of(1L, 2L));
+    }
+
+    private static UserResponseDTO user(long id) {
+        return new UserResponseDTO(id, "João", "Carreira", LocalDate.of(1990, 1, 1), 0L);
+    }
+}
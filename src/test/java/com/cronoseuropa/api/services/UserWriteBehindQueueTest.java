@@ -0,0 +1,167 @@
+package com.cronoseuropa.api.services;
+
+import com.cronoseuropa.api.caches.UserBirthDateStats;
+import com.cronoseuropa.api.caches.UserResponseCache;
+import com.cronoseuropa.api.caches.UserTableVersion;
+import com.cronoseuropa.api.caches.UserTrigramIndex;
+import com.cronoseuropa.api.exceptions.CronosTooManyRequestsException;
+import com.cronoseuropa.api.models.dtos.SaveUserRequestDTO;
+import com.cronoseuropa.api.models.dtos.UserResponseDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserWriteBehindQueueTest {
+
+    private final AtomicLong ids = new AtomicLong();
+    private final UserIdAllocator userIdAllocator = mock(UserIdAllocator.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final UserResponseCache userCache = mock(UserResponseCache.class);
+    private final UserTrigramIndex userTrigramIndex = mock(UserTrigramIndex.class);
+    private final UserBirthDateStats userBirthDateStats = mock(UserBirthDateStats.class);
+    private final EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    public void setUp() {
+        when(userIdAllocator.nextId()).thenAnswer(invocation -> ids.incrementAndGet());
+        when(entityManagerFactory.unwrap(SessionFactory.class))
+                .thenReturn(mock(SessionFactory.class, RETURNS_DEEP_STUBS));
+    }
+
+    @Test
+    public void testRejectsWhenFull() {
+        var queue = queue(false, 1, UserWriteBehindQueue.Backpressure.REJECT, Duration.ZERO);
+
+        var accepted = queue.enqueue(request());
+        var ex = assertThrows(CronosTooManyRequestsException.class, () -> queue.enqueue(request()));
+
+        assertEquals(3001, ex.getCode());
+        verify(userCache).put(accepted);
+        verify(userCache, times(1)).put(any());
+    }
+
+    @Test
+    public void testBlocksUntilTimeoutWhenFull() {
+        var queue = queue(false, 1, UserWriteBehindQueue.Backpressure.BLOCK, Duration.ofMillis(200));
+        queue.enqueue(request());
+
+        var start = System.nanoTime();
+        var ex = assertThrows(CronosTooManyRequestsException.class, () -> queue.enqueue(request()));
+
+        assertEquals(3001, ex.getCode());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    public void testBlocksUntilFlusherMakesRoom() throws Exception {
+        var queue = queue(true, 1, UserWriteBehindQueue.Backpressure.BLOCK, Duration.ofSeconds(10));
+        queue.enqueue(request());
+
+        var blocked = CompletableFuture.supplyAsync(() -> queue.enqueue(request()));
+        Thread.sleep(100);
+        assertFalse(blocked.isDone());
+
+        queue.start();
+        try {
+            assertEquals(2L, blocked.get(5, TimeUnit.SECONDS).getId());
+        } finally {
+            queue.stop();
+        }
+        verify(userTrigramIndex, times(2)).put(any());
+    }
+
+    @Test
+    public void testDeadLettersRowsThatCannotBeInserted() throws Exception {
+        var queue = queue(false, 10, UserWriteBehindQueue.Backpressure.REJECT, Duration.ZERO);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any())).thenAnswer(invocation -> {
+            List<UserResponseDTO> users = invocation.getArgument(1);
+            if (users.stream().anyMatch(user -> 2L == user.getId()))
+                throw new DataIntegrityViolationException("Duplicate key");
+            return new int[][]{{1}};
+        });
+
+        var batch = List.of(user(1), user(2), user(3));
+        queue.flush(batch);
+
+        // Two attempts at the batch, then one insert per row
+        verify(jdbcTemplate, times(5)).batchUpdate(anyString(), anyList(), anyInt(), any());
+        verify(userTrigramIndex).put(batch.get(0));
+        verify(userTrigramIndex, never()).put(batch.get(1));
+        verify(userTrigramIndex).put(batch.get(2));
+        batch.forEach(user -> verify(userCache).invalidate(user.getId()));
+        assertEquals(1, meterRegistry.get("cronos.users.write_behind.failed").counter().count());
+
+        var deadLetters = Files.readAllLines(tempDir.resolve("dead-letter.ndjson"));
+        assertEquals(1, deadLetters.size());
+        assertTrue(deadLetters.get(0).contains("\"surname\":\"Carreira 2\""), deadLetters.get(0));
+    }
+
+    @Test
+    public void testInvalidatesCachedUsersAfterFlush() {
+        var queue = queue(false, 10, UserWriteBehindQueue.Backpressure.REJECT, Duration.ZERO);
+
+        queue.flush(List.of(user(1)));
+
+        verify(userCache).invalidate(1L);
+        assertTrue(Files.notExists(tempDir.resolve("dead-letter.ndjson")));
+    }
+
+    private UserWriteBehindQueue queue(boolean enabled, int capacity, UserWriteBehindQueue.Backpressure backpressure,
+                                       Duration blockTimeout) {
+        return new UserWriteBehindQueue(userIdAllocator, jdbcTemplate,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), userCache,
+                new UserChangePublisher(userCache, userTrigramIndex, userBirthDateStats,
+                        mock(UserTableVersion.class), mock(UserChangeFeed.class)),
+                entityManagerFactory, Jackson2ObjectMapperBuilder.json().build(), meterRegistry, enabled, capacity,
+                10, Duration.ofMillis(10), backpressure, blockTimeout, 2, Duration.ofMillis(1),
+                tempDir.resolve("dead-letter.ndjson"));
+    }
+
+    private static SaveUserRequestDTO request() {
+        var dto = new SaveUserRequestDTO();
+        dto.setName("João");
+        dto.setSurname("Carreira");
+        dto.setBirthDate(LocalDate.of(1990, 1, 1));
+        return dto;
+    }
+
+    private static UserResponseDTO user(long id) {
+        return new UserResponseDTO(id, "João", "Carreira " + id, LocalDate.of(1990, 1, 1), 0L);
+    }
+}
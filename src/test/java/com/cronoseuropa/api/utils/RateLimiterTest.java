@@ -0,0 +1,47 @@
+package com.cronoseuropa.api.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    // 10 permits per second, so one every 100 ms, and bursts of 3
+    private final RateLimiter rateLimiter = new RateLimiter(10, 3, Duration.ofMinutes(1), 100, now::get);
+
+    @Test
+    public void testAllowsABurstThenRejects() {
+        for (int i = 0; i < 3; i++) assertEquals(0, rateLimiter.tryAcquire("client"));
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), rateLimiter.tryAcquire("client"));
+    }
+
+    @Test
+    public void testRefillsOnePermitPerInterval() {
+        for (int i = 0; i < 3; i++) rateLimiter.tryAcquire("client");
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(40));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(60), rateLimiter.tryAcquire("client"));
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(60));
+        assertEquals(0, rateLimiter.tryAcquire("client"));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), rateLimiter.tryAcquire("client"));
+
+        // A long pause refills the whole burst, but no more
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        for (int i = 0; i < 3; i++) assertEquals(0, rateLimiter.tryAcquire("client"));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), rateLimiter.tryAcquire("client"));
+    }
+
+    @Test
+    public void testKeysHaveTheirOwnBudget() {
+        for (int i = 0; i < 3; i++) rateLimiter.tryAcquire("client");
+
+        assertEquals(0, rateLimiter.tryAcquire("other"));
+    }
+}